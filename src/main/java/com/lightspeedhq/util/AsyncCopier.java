@@ -0,0 +1,160 @@
+package com.lightspeedhq.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs deep copies asynchronously with bounded concurrency.
+ * <p>
+ * Copies run on the configured executor, which defaults to one virtual thread per copy. At
+ * most a fixed number of copies run at the same time, the others wait for a permit, and
+ * copies submitted while too many are pending are rejected, so a burst of large copies
+ * cannot exhaust the heap.
+ * </p>
+ * <p>
+ * The source graph is read while the copy runs, possibly long after the copy was submitted
+ * and concurrently with the caller. Callers must not modify the graph until the returned
+ * future completes: a modification made meanwhile may be partly reflected in the copy,
+ * which is then torn without any error being reported. As long as the graph is left
+ * untouched, results are the same as those of {@link CopyUtils#deepCopy}.
+ * </p>
+ */
+public final class AsyncCopier {
+
+    /**
+     * Maximum number of pending copies of the default copier.
+     */
+    private static final int DEFAULT_MAX_PENDING = 1024;
+
+    private final Executor executor;
+    private final Semaphore running;
+    private final int maxPending;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private AsyncCopier(final Executor executor, final int maxConcurrent, final int maxPending) {
+        this.executor = executor;
+        this.running = new Semaphore(maxConcurrent, true);
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Returns the shared copier running on virtual threads, with as many concurrent copies
+     * as processors.
+     *
+     * @return The default copier
+     */
+    public static AsyncCopier defaults() {
+        return Holder.DEFAULT;
+    }
+
+    /**
+     * Creates a copier running on the provided executor.
+     *
+     * @param executor      The executor running the copies
+     * @param maxConcurrent The maximum number of copies running at the same time
+     * @param maxPending    The maximum number of submitted copies not completed yet
+     * @return The copier
+     * @throws IllegalArgumentException If a limit is not positive or the pending limit is
+     *                                  lower than the concurrency limit
+     */
+    public static AsyncCopier of(final Executor executor, final int maxConcurrent, final int maxPending) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Maximum concurrency must be positive: " + maxConcurrent);
+        }
+        if (maxPending < maxConcurrent) {
+            throw new IllegalArgumentException("Maximum pending copies must not be lower than maximum concurrency: "
+                    + maxPending);
+        }
+        return new AsyncCopier(executor, maxConcurrent, maxPending);
+    }
+
+    /**
+     * Creates a deep copy of the provided object asynchronously.
+     * <p>
+     * The object graph must not be modified until the returned future completes.
+     * </p>
+     *
+     * @param obj The object to deep copy
+     * @param <T> The type of the object
+     * @return A future completed with the copy, or with the exception of the copy
+     * @throws RejectedExecutionException If too many copies are pending
+     */
+    public <T> CompletableFuture<T> copy(final T obj) {
+        return copy(obj, CopyOptions.defaults());
+    }
+
+    /**
+     * Creates a copy of the provided object as specified by the provided options asynchronously.
+     * <p>
+     * The object graph must not be modified until the returned future completes.
+     * </p>
+     *
+     * @param obj     The object to copy
+     * @param options The options controlling the copy
+     * @param <T>     The type of the object
+     * @return A future completed with the copy, or with the exception of the copy
+     * @throws RejectedExecutionException If too many copies are pending or the executor
+     *                                    rejects the copy
+     */
+    public <T> CompletableFuture<T> copy(final T obj, final CopyOptions options) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            throw new RejectedExecutionException("Too many pending copies: " + maxPending);
+        }
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(obj, options, result));
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of submitted copies not completed yet.
+     *
+     * @return The number of pending copies
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    private <T> void run(final T obj, final CopyOptions options, final CompletableFuture<T> result) {
+        T copy = null;
+        Throwable failure = null;
+        try {
+            running.acquire();
+            try {
+                copy = CopyUtils.deepCopy(obj, options);
+            } finally {
+                running.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (Throwable e) {
+            failure = e;
+        }
+        // released before completion so that dependent stages can submit the next copy
+        pending.decrementAndGet();
+        if (failure == null) {
+            result.complete(copy);
+        } else {
+            result.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Lazily created default copier.
+     */
+    private static final class Holder {
+
+        private static final AsyncCopier DEFAULT = new AsyncCopier(Executors.newVirtualThreadPerTaskExecutor(),
+                Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_PENDING);
+    }
+}
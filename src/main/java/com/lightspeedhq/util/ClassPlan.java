@@ -0,0 +1,433 @@
+package com.lightspeedhq.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.Vector;
+import java.util.WeakHashMap;
+
+/**
+ * Resolved copy plan of a single class.
+ * <p>
+ * A plan records how instances of a class take part in a deep copy: whether they are
+ * shared as immutable values, handled as arrays, collections or maps, or copied field by
+ * field. For the latter the plan holds the accessible, non-static fields of the class and
+ * all its superclasses, so reflection is only performed once per class.
+ * </p>
+ * <p>
+ * Plans of cloneable classes also carry a handle to a shallow clone operation. Copying
+ * such an object starts from a clone, which copies all fields in a single block move,
+ * and then only replaces the references that point to mutable objects.
+ * </p>
+ */
+final class ClassPlan {
+
+    /**
+     * Set of immutable classes that don't need deep copying.
+     * <p>
+     * Objects of these classes can be shared between the original and copied object
+     * graph since they cannot be modified.
+     * </p>
+     */
+    private static final Set<Class<?>> IMMUTABLES = Set.of(
+            Integer.class, Long.class,
+            String.class, Boolean.class,
+            Double.class, Float.class,
+            Character.class, Byte.class,
+            Short.class, Void.class,
+            BigDecimal.class, BigInteger.class,
+            OptionalInt.class, OptionalLong.class,
+            OptionalDouble.class, UUID.class,
+            Locale.class, Currency.class,
+            Class.class
+    );
+
+    /**
+     * Package whose classes are all immutable value types.
+     */
+    private static final String JAVA_TIME_PACKAGE = "java.time";
+
+    /**
+     * JDK classes whose public {@code clone()} creates an independent shallow copy.
+     * <p>
+     * A clone of these classes owns its internal structure and shares only the elements,
+     * keys and values with the original, so it can be turned into a deep copy by
+     * replacing those references. Subclasses are not included since their
+     * {@code clone()} may behave differently.
+     * </p>
+     */
+    private static final Set<Class<?>> JDK_CLONEABLES = Set.of(
+            ArrayList.class, LinkedList.class,
+            Vector.class, ArrayDeque.class,
+            HashSet.class, LinkedHashSet.class,
+            TreeSet.class, HashMap.class,
+            LinkedHashMap.class, TreeMap.class,
+            IdentityHashMap.class, EnumMap.class,
+            BitSet.class
+    );
+
+    /**
+     * Type of the adapted clone handles, taking and returning a plain object.
+     */
+    private static final MethodType CLONE_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Estimated size of an object header, assuming a 64-bit JVM with compressed references.
+     */
+    private static final int OBJECT_HEADER_SIZE = 12;
+
+    /**
+     * Estimated size of an array header, including its length.
+     */
+    private static final int ARRAY_HEADER_SIZE = 16;
+
+    /**
+     * Estimated size of a compressed reference.
+     */
+    private static final int REFERENCE_SIZE = 4;
+
+    /**
+     * Estimated size of an internal node of hash and tree based collections and maps.
+     */
+    private static final int NODE_SIZE = 32;
+
+    /**
+     * Estimated size of JDK objects whose fields are not planned.
+     */
+    private static final int OPAQUE_INSTANCE_SIZE = 48;
+
+    /**
+     * Cache of already resolved plans, stored with their class so that class loaders are not pinned.
+     */
+    private static final ClassValue<ClassPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected ClassPlan computeValue(final Class<?> type) {
+            final ClassPlan plan = new ClassPlan(type);
+            PLANNED_TYPES.add(type);
+            return plan;
+        }
+    };
+
+    /**
+     * Weakly referenced classes whose plans have been resolved, listed by warm-up profiles.
+     */
+    private static final Set<Class<?>> PLANNED_TYPES = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * The way instances of a class are handled during a deep copy.
+     */
+    enum Kind {
+        /**
+         * Shared as is between the original and the copy.
+         */
+        IMMUTABLE,
+        /**
+         * Copied element by element into a new array.
+         */
+        ARRAY,
+        /**
+         * Copied through an {@link com.lightspeedhq.util.collections.ICollectionOp}.
+         */
+        COLLECTION,
+        /**
+         * Copied through an {@link com.lightspeedhq.util.map.IMapOp}.
+         */
+        MAP,
+        /**
+         * Shared when empty or holding an immutable value, rewrapped around a copy of
+         * the value otherwise.
+         */
+        OPTIONAL,
+        /**
+         * Byte buffer, shared when read-only, copied in bulk into a new buffer otherwise.
+         */
+        BUFFER,
+        /**
+         * Instantiated and copied field by field.
+         */
+        OBJECT
+    }
+
+    private final Class<?> type;
+    private final Kind kind;
+    private final List<Field> fields;
+    private final List<Field> referenceFields;
+    private final MethodHandle cloner;
+    private final long instanceSize;
+
+    private ClassPlan(final Class<?> type) {
+        this.type = type;
+        this.kind = kindOf(type);
+        final boolean jdkCloneable = JDK_CLONEABLES.contains(type);
+        this.fields = kind == Kind.OBJECT && !jdkCloneable ? resolveFields(type) : List.of();
+        this.referenceFields = fields.stream().filter(field -> !field.getType().isPrimitive()).toList();
+        this.cloner = jdkCloneable ? publicCloner(type)
+                : EnumSet.class.isAssignableFrom(type) ? publicCloner(EnumSet.class)
+                : kind == Kind.OBJECT ? objectCloner(type) : null;
+        this.instanceSize = fields.isEmpty() ? OPAQUE_INSTANCE_SIZE : instanceSizeOf(fields);
+    }
+
+    /**
+     * Returns the copy plan of the specified class, resolving it on first use.
+     *
+     * @param type The class to get the plan for
+     * @return The copy plan of the class
+     */
+    static ClassPlan of(final Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * Returns the classes whose plans have been resolved so far.
+     *
+     * @return A snapshot of the planned classes
+     */
+    static Set<Class<?>> plannedTypes() {
+        synchronized (PLANNED_TYPES) {
+            return Set.copyOf(PLANNED_TYPES);
+        }
+    }
+
+    /**
+     * Returns the class this plan was resolved for.
+     *
+     * @return The planned class
+     */
+    Class<?> type() {
+        return type;
+    }
+
+    /**
+     * Returns the way instances of the planned class are copied.
+     *
+     * @return The kind of the planned class
+     */
+    Kind kind() {
+        return kind;
+    }
+
+    /**
+     * Returns the accessible, non-static fields of the planned class and its superclasses.
+     * <p>
+     * Fields are ordered from the class itself up to its topmost superclass, in declaration
+     * order within each class. The list is empty for every kind other than {@link Kind#OBJECT}
+     * and for JDK classes that are copied through their public {@code clone()}.
+     * </p>
+     *
+     * @return The fields copied for instances of the planned class
+     */
+    List<Field> fields() {
+        return fields;
+    }
+
+    /**
+     * Returns the non-primitive subset of {@link #fields()}, in the same order.
+     *
+     * @return The reference fields of the planned class
+     */
+    List<Field> referenceFields() {
+        return referenceFields;
+    }
+
+    /**
+     * Returns the shallow clone operation of the planned class, if it has one.
+     * <p>
+     * For classes implementing {@link Cloneable} the handle invokes {@link Object#clone()}
+     * itself, bypassing any override, so the clone is always an exact field copy. For
+     * supported JDK containers, including all {@link EnumSet} implementations, it invokes
+     * their public {@code clone()}. The handle is
+     * adapted to take and return {@code Object} and must be called with
+     * {@link MethodHandle#invokeExact}.
+     * </p>
+     *
+     * @return The clone handle, or null if instances are not copied by cloning
+     */
+    MethodHandle cloner() {
+        return cloner;
+    }
+
+    /**
+     * Estimates the shallow size of an instance of the planned class.
+     * <p>
+     * The estimate assumes a 64-bit JVM with compressed references. For arrays it accounts
+     * for the length, for collections and maps it includes a rough estimate of their
+     * internal structure, but never the size of referenced elements.
+     * </p>
+     *
+     * @param obj An instance of the planned class
+     * @return The estimated shallow size in bytes
+     */
+    long estimateSize(final Object obj) {
+        return switch (kind) {
+            case ARRAY -> align(ARRAY_HEADER_SIZE + (long) Array.getLength(obj) * sizeOf(type.componentType()));
+            case COLLECTION -> obj instanceof Set<?>
+                    ? instanceSize + ((Collection<?>) obj).size() * (long) (NODE_SIZE + REFERENCE_SIZE)
+                    : instanceSize + align(ARRAY_HEADER_SIZE + ((Collection<?>) obj).size() * (long) REFERENCE_SIZE);
+            case MAP -> instanceSize + ((Map<?, ?>) obj).size() * (long) (NODE_SIZE + REFERENCE_SIZE);
+            case BUFFER -> instanceSize + align(ARRAY_HEADER_SIZE + ((ByteBuffer) obj).capacity());
+            default -> obj instanceof BitSet bits ? instanceSize + align(ARRAY_HEADER_SIZE + bits.size() / 8) : instanceSize;
+        };
+    }
+
+    /**
+     * Determines how instances of the specified class are copied.
+     *
+     * @param type The class to classify
+     * @return The kind of the class
+     */
+    private static Kind kindOf(final Class<?> type) {
+        if (type.isArray()) {
+            return Kind.ARRAY;
+        } else if (type.isPrimitive() || Enum.class.isAssignableFrom(type) || IMMUTABLES.contains(type)
+                || type.getPackageName().equals(JAVA_TIME_PACKAGE)) {
+            return Kind.IMMUTABLE;
+        } else if (type == Optional.class) {
+            return Kind.OPTIONAL;
+        } else if (Collection.class.isAssignableFrom(type)) {
+            return Kind.COLLECTION;
+        } else if (Map.class.isAssignableFrom(type)) {
+            return Kind.MAP;
+        } else if (ByteBuffer.class.isAssignableFrom(type)) {
+            return Kind.BUFFER;
+        }
+        return Kind.OBJECT;
+    }
+
+    /**
+     * Collects the non-static fields of a class and all its superclasses.
+     * <p>
+     * This method traverses the class hierarchy from the given class up to Object,
+     * making every instance field accessible on the way.
+     * </p>
+     *
+     * @param type The starting class
+     * @return The instance fields of the class hierarchy
+     */
+    private static List<Field> resolveFields(final Class<?> type) {
+        final List<Field> result = new ArrayList<>();
+        Class<?> current = type;
+        while (current != null) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    result.add(field);
+                }
+            }
+            current = current.getSuperclass();
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * Resolves the public {@code clone()} method of a JDK container class.
+     *
+     * @param type The container class
+     * @return The adapted clone handle
+     */
+    private static MethodHandle publicCloner(final Class<?> type) {
+        try {
+            return MethodHandles.publicLookup().unreflect(type.getMethod("clone")).asType(CLONE_TYPE);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to access clone() of " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Resolves {@link Object#clone()} for a cloneable class.
+     * <p>
+     * The method is looked up as a special invocation from the class itself, which needs
+     * its package to be open to this library. Classes of packages that are not open are
+     * copied field by field instead.
+     * </p>
+     *
+     * @param type The class to resolve the clone operation for
+     * @return The adapted clone handle, or null if the class cannot be cloned this way
+     */
+    private static MethodHandle objectCloner(final Class<?> type) {
+        if (!Cloneable.class.isAssignableFrom(type)) {
+            return null;
+        }
+        try {
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                    .findSpecial(Object.class, "clone", MethodType.methodType(Object.class), type)
+                    .asType(CLONE_TYPE);
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Estimates the size of an instance holding the specified fields.
+     *
+     * @param fields The instance fields
+     * @return The estimated instance size in bytes
+     */
+    private static long instanceSizeOf(final List<Field> fields) {
+        long size = OBJECT_HEADER_SIZE;
+        for (Field field : fields) {
+            size += sizeOf(field.getType());
+        }
+        return align(size);
+    }
+
+    /**
+     * Returns the estimated size of a field or array element of the specified type.
+     *
+     * @param type The field or component type
+     * @return The estimated size in bytes
+     */
+    private static int sizeOf(final Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE_SIZE;
+    }
+
+    /**
+     * Aligns a size to the 8 byte object alignment.
+     *
+     * @param size The unaligned size
+     * @return The aligned size
+     */
+    private static long align(final long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,71 @@
+package com.lightspeedhq.util;
+
+import java.time.Duration;
+
+/**
+ * Tracks the resources spent by a single deep copy against the limits of its options.
+ * <p>
+ * Object count and estimated size are checked for every copied object. The clock is
+ * only read every {@link #TIME_CHECK_INTERVAL} objects to keep the check cheap.
+ * </p>
+ */
+final class CopyBudget {
+
+    /**
+     * Number of copied objects between two time checks, must be a power of two.
+     */
+    private static final int TIME_CHECK_INTERVAL = 256;
+
+    private final long maxObjects;
+    private final long maxBytes;
+    private final long start;
+    private final boolean timed;
+    private final long deadline;
+    private long objects;
+    private long bytes;
+
+    private CopyBudget(final CopyOptions options) {
+        this.maxObjects = options.maxObjects();
+        this.maxBytes = options.maxBytes();
+        this.start = System.nanoTime();
+        this.timed = options.maxTime() != null;
+        this.deadline = timed ? start + options.maxTime().toNanos() : 0;
+    }
+
+    /**
+     * Creates the budget of a copy running with the specified options.
+     *
+     * @param options The options of the copy
+     * @return The budget, or null if the options do not set any limit
+     */
+    static CopyBudget of(final CopyOptions options) {
+        return options.maxObjects() == Long.MAX_VALUE && options.maxBytes() == Long.MAX_VALUE
+                && options.maxTime() == null ? null : new CopyBudget(options);
+    }
+
+    /**
+     * Charges the copy of an object to the budget.
+     *
+     * @param obj  The object about to be copied
+     * @param plan The plan of the object class
+     * @throws CopyBudgetExceededException If the copy exceeds one of the limits
+     */
+    void charge(final Object obj, final ClassPlan plan) {
+        objects++;
+        bytes += plan.estimateSize(obj);
+        if (objects > maxObjects) {
+            throw exceeded(CopyBudgetExceededException.Limit.OBJECTS, System.nanoTime());
+        } else if (bytes > maxBytes) {
+            throw exceeded(CopyBudgetExceededException.Limit.BYTES, System.nanoTime());
+        } else if (timed && (objects & (TIME_CHECK_INTERVAL - 1)) == 0) {
+            final long now = System.nanoTime();
+            if (now - deadline > 0) {
+                throw exceeded(CopyBudgetExceededException.Limit.TIME, now);
+            }
+        }
+    }
+
+    private CopyBudgetExceededException exceeded(final CopyBudgetExceededException.Limit limit, final long now) {
+        return new CopyBudgetExceededException(limit, objects, bytes, Duration.ofNanos(now - start));
+    }
+}
@@ -0,0 +1,164 @@
+package com.lightspeedhq.util;
+
+import java.io.Serial;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thrown when a deep copy exceeds one of the limits configured in its {@link CopyOptions}.
+ * <p>
+ * The exception reports where the budget was spent: the number of objects copied and
+ * their estimated size, the elapsed time, the classes with the most copied instances
+ * and the field path of the object whose copy exceeded the limit.
+ * </p>
+ */
+public class CopyBudgetExceededException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of classes reported by {@link #getTopClasses()}.
+     */
+    private static final int TOP_CLASSES = 10;
+
+    /**
+     * The limits a copy can exceed.
+     */
+    public enum Limit {
+        /**
+         * Maximum number of copied objects.
+         */
+        OBJECTS,
+        /**
+         * Maximum estimated size of copied objects.
+         */
+        BYTES,
+        /**
+         * Maximum duration of the copy.
+         */
+        TIME
+    }
+
+    private final Limit limit;
+    private final long objects;
+    private final long bytes;
+    private final Duration elapsed;
+    private final ArrayDeque<String> path = new ArrayDeque<>();
+    private LinkedHashMap<Class<?>, Long> topClasses = new LinkedHashMap<>();
+
+    CopyBudgetExceededException(final Limit limit, final long objects, final long bytes, final Duration elapsed) {
+        this.limit = limit;
+        this.objects = objects;
+        this.bytes = bytes;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Returns the limit that was exceeded.
+     *
+     * @return The exceeded limit
+     */
+    public Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of objects copied when the copy was aborted.
+     *
+     * @return The number of copied objects
+     */
+    public long getObjects() {
+        return objects;
+    }
+
+    /**
+     * Returns the estimated size of the objects copied when the copy was aborted.
+     *
+     * @return The estimated size in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the time spent copying until the copy was aborted.
+     *
+     * @return The elapsed time
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the path from the root to the object whose copy exceeded the limit.
+     * <p>
+     * Segments are field names, or indexes and {@code [*]} for the content of arrays,
+     * collections and maps, for instance {@code "department.members[3].address"}.
+     * </p>
+     *
+     * @return The path, empty if the limit was exceeded by the root
+     */
+    public String getPath() {
+        final StringBuilder result = new StringBuilder();
+        for (String segment : path) {
+            if (!result.isEmpty() && !segment.startsWith("[")) {
+                result.append('.');
+            }
+            result.append(segment);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the classes with the most copied instances, in descending order of count.
+     *
+     * @return The number of copied instances of the top classes
+     */
+    public Map<Class<?>, Long> getTopClasses() {
+        return Collections.unmodifiableMap(topClasses);
+    }
+
+    @Override
+    public String getMessage() {
+        return "Copy budget exceeded: " + limit + " limit reached after " + objects + " objects, ~"
+                + bytes + " bytes, " + elapsed.toMillis() + " ms at path '" + getPath() + "', top classes "
+                + topClasses;
+    }
+
+    /**
+     * Prepends a segment to the path while the exception unwinds the copy.
+     *
+     * @param segment The segment leading to the current position
+     * @return This exception
+     */
+    CopyBudgetExceededException within(final String segment) {
+        path.addFirst(segment);
+        return this;
+    }
+
+    /**
+     * Records the classes of the objects copied until the copy was aborted.
+     *
+     * @param copied The original objects that were copied
+     * @return This exception
+     */
+    CopyBudgetExceededException withCopied(final Collection<Object> copied) {
+        final Map<Class<?>, Long> counts = new HashMap<>();
+        for (Object obj : copied) {
+            counts.merge(obj.getClass(), 1L, Long::sum);
+        }
+        final LinkedHashMap<Class<?>, Long> top = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<Class<?>, Long>comparingByValue().reversed())
+                .limit(TOP_CLASSES)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        this.topClasses = top;
+        return this;
+    }
+}
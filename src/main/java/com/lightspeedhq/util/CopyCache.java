@@ -0,0 +1,218 @@
+package com.lightspeedhq.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Bounded cache of deep copies keyed by the identity of their source and a version stamp.
+ * <p>
+ * Callers provide a stamp that increases whenever the source changes, for instance a version
+ * counter or a modification time. As long as the stamp is the same, the copy made for the
+ * first call is reused instead of copying the whole graph again, and concurrent calls for
+ * the same source wait for a single copy. A call with a higher stamp replaces the cached
+ * copy, while a call with a lower stamp, from a caller that has not seen the latest version
+ * yet, copies the source without touching the cache. Sources are only weakly referenced and
+ * the least recently used copies are evicted once the cache is full.
+ * </p>
+ * <p>
+ * Copies returned by {@link #getShared(Object, long)} are shared between callers and must
+ * not be modified. Callers that need to modify their copy use {@link #get(Object, long)}.
+ * </p>
+ */
+public final class CopyCache {
+
+    private final CopyOptions options;
+    private final Map<Key, Entry> entries;
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    private CopyCache(final int maxSize, final CopyOptions options) {
+        this.options = options;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Creates a cache of complete deep copies.
+     *
+     * @param maxSize The maximum number of cached copies
+     * @return The cache
+     * @throws IllegalArgumentException If the size is not positive
+     */
+    public static CopyCache of(final int maxSize) {
+        return of(maxSize, CopyOptions.defaults());
+    }
+
+    /**
+     * Creates a cache of copies made with the provided options.
+     *
+     * @param maxSize The maximum number of cached copies
+     * @param options The options of the cached copies
+     * @return The cache
+     * @throws IllegalArgumentException If the size is not positive
+     */
+    public static CopyCache of(final int maxSize, final CopyOptions options) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maxSize);
+        }
+        return new CopyCache(maxSize, options);
+    }
+
+    /**
+     * Returns the cached copy of the source, copying the source if it has no copy for the stamp.
+     * <p>
+     * The returned copy is shared with every other caller passing the same source and stamp,
+     * it must be treated as read-only. A stamp lower than the cached one is stale, the source
+     * is then copied without being cached and the cached copy is kept.
+     * </p>
+     *
+     * @param source The object to copy
+     * @param stamp  The version of the source
+     * @param <T>    The type of the object
+     * @return The shared copy of the source
+     * @throws Exception If an error occurs during the copying process
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getShared(final T source, final long stamp) throws Exception {
+        if (source == null) {
+            return null;
+        }
+        final Entry entry;
+        final boolean owner;
+        synchronized (this) {
+            expungeStaleEntries();
+            final Entry existing = entries.get(new Key(source, null));
+            if (existing != null && stamp < existing.stamp) {
+                entry = null;
+                owner = false;
+            } else if (existing == null || stamp > existing.stamp) {
+                entry = new Entry(stamp);
+                entries.put(new Key(source, queue), entry);
+                owner = true;
+            } else {
+                entry = existing;
+                owner = false;
+            }
+        }
+        if (entry == null) {
+            // stale stamps are served without replacing the newer cached copy
+            return CopyUtils.deepCopy(source, options);
+        }
+        if (owner) {
+            try {
+                entry.copy.complete(CopyUtils.deepCopy(source, options));
+            } catch (Exception | Error e) {
+                entry.copy.completeExceptionally(e);
+                synchronized (this) {
+                    entries.remove(new Key(source, null), entry);
+                }
+                throw e;
+            }
+        }
+        try {
+            return (T) entry.copy.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a private copy of the cached copy of the source.
+     * <p>
+     * The returned copy can be modified freely. It is a complete deep copy of the cached copy,
+     * so each call costs as much as copying the source itself: the cache saves nothing here
+     * beyond never traversing the source while it may be modified. Callers that copy often
+     * should prefer {@link #getShared(Object, long)} and copy only what they modify.
+     * </p>
+     *
+     * @param source The object to copy
+     * @param stamp  The version of the source
+     * @param <T>    The type of the object
+     * @return A copy of the source owned by the caller
+     * @throws Exception If an error occurs during the copying process
+     */
+    public <T> T get(final T source, final long stamp) throws Exception {
+        return CopyUtils.deepCopy(getShared(source, stamp), options);
+    }
+
+    /**
+     * Removes the cached copy of the source.
+     *
+     * @param source The object whose copy is removed
+     */
+    public synchronized void invalidate(final Object source) {
+        expungeStaleEntries();
+        if (source != null) {
+            entries.remove(new Key(source, null));
+        }
+    }
+
+    /**
+     * Returns the number of cached copies.
+     *
+     * @return The number of entries, including sources collected since the last operation
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void expungeStaleEntries() {
+        for (Reference<?> ref; (ref = queue.poll()) != null; ) {
+            entries.remove(ref);
+        }
+    }
+
+    /**
+     * Copy of a source for a stamp, completed once by the first caller.
+     */
+    private static final class Entry {
+
+        private final long stamp;
+        private final CompletableFuture<Object> copy = new CompletableFuture<>();
+
+        Entry(final long stamp) {
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * Weak reference to a source comparing by identity, a cleared key is only equal to itself.
+     */
+    private static final class Key extends WeakReference<Object> {
+
+        private final int hash;
+
+        Key(final Object source, final ReferenceQueue<Object> queue) {
+            super(source, queue);
+            this.hash = System.identityHashCode(source);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key) || hash != key.hash) {
+                return false;
+            }
+            final Object source = get();
+            return source != null && source == key.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.lightspeedhq.util;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * State of a single deep copy.
+ * <p>
+ * Holds the options the copy runs with, the map of already copied objects, which
+ * keeps shared references and cycles intact in the copied graph, and the budget the
+ * copy is charged to. A context holding a meter measures the graph instead of copying it.
+ * </p>
+ */
+final class CopyContext {
+
+    /**
+     * Map of original objects to their corresponding copies.
+     */
+    final Map<Object, Object> converted;
+
+    /**
+     * Original objects copied by this copy, a subset of the map keys when the map is shared.
+     */
+    final Collection<Object> copied;
+
+    /**
+     * Maximum depth of copied objects, deeper objects are shared.
+     */
+    final int maxDepth;
+
+    /**
+     * Budget charged for every copied object, or null if the copy is not limited.
+     */
+    final CopyBudget budget;
+
+    /**
+     * Table of canonical instances of interned values, or null if values are not interned.
+     */
+    final InternTable interning;
+
+    /**
+     * Minimum length of byte arrays shared with the original instead of copied.
+     */
+    final int sharedByteArrayLength;
+
+    /**
+     * Meter of a dry-run copy, or null if objects are copied.
+     */
+    final GraphMeter meter;
+
+    CopyContext(final CopyOptions options) {
+        this(options, options.expectedObjects() > 0
+                ? new IdentityHashMap<>(options.expectedObjects()) : new IdentityHashMap<>());
+    }
+
+    private CopyContext(final CopyOptions options, final Map<Object, Object> converted) {
+        this(options, converted, converted.keySet(), null);
+    }
+
+    /**
+     * Creates the state of a copy recording its copies into an existing map.
+     * <p>
+     * Copies sharing a map reuse each other's copies, which keeps objects shared between
+     * the copied roots shared between their copies as well.
+     * </p>
+     *
+     * @param options   The options of the copy
+     * @param converted The identity map of original objects to their copies
+     * @param copied    The originals added to the map by this copy
+     */
+    CopyContext(final CopyOptions options, final Map<Object, Object> converted, final Collection<Object> copied) {
+        this(options, converted, copied, null);
+    }
+
+    private CopyContext(final CopyOptions options, final Map<Object, Object> converted,
+                        final Collection<Object> copied, final GraphMeter meter) {
+        this.converted = converted;
+        this.copied = copied;
+        this.maxDepth = options.maxDepth();
+        this.budget = meter == null ? CopyBudget.of(options) : null;
+        this.meter = meter;
+        this.interning = options.interning();
+        this.sharedByteArrayLength = options.sharedByteArrayLength();
+    }
+
+    /**
+     * Creates the state of a dry-run copy, which traverses the graph like a copy with the
+     * provided options without creating copies or charging a budget.
+     *
+     * @param options The options of the measured copy
+     * @return The state of the dry run
+     */
+    static CopyContext measuring(final CopyOptions options) {
+        final Map<Object, Object> converted = new IdentityHashMap<>();
+        return new CopyContext(options, converted, converted.keySet(), new GraphMeter());
+    }
+}
@@ -0,0 +1,238 @@
+package com.lightspeedhq.util;
+
+import java.time.Duration;
+
+/**
+ * Immutable set of options controlling a deep copy.
+ * <p>
+ * Options are created from {@link #defaults()}, which perform a complete deep copy, and
+ * adjusted with the {@code with...} methods, each returning a new instance. Instances
+ * can be shared freely between threads and copies.
+ * </p>
+ */
+public final class CopyOptions {
+
+    private static final CopyOptions DEFAULTS = new CopyOptions();
+
+    private int maxDepth = Integer.MAX_VALUE;
+    private PathSelector paths = PathSelector.ALL;
+    private long maxObjects = Long.MAX_VALUE;
+    private long maxBytes = Long.MAX_VALUE;
+    private Duration maxTime;
+    private int expectedObjects;
+    private InternTable interning;
+    private int sharedByteArrayLength = Integer.MAX_VALUE;
+
+    private CopyOptions() {
+    }
+
+    private CopyOptions(final CopyOptions other) {
+        this.maxDepth = other.maxDepth;
+        this.paths = other.paths;
+        this.maxObjects = other.maxObjects;
+        this.maxBytes = other.maxBytes;
+        this.maxTime = other.maxTime;
+        this.expectedObjects = other.expectedObjects;
+        this.interning = other.interning;
+        this.sharedByteArrayLength = other.sharedByteArrayLength;
+    }
+
+    /**
+     * Returns the options of a complete deep copy.
+     *
+     * @return The default options
+     */
+    public static CopyOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Limits the copy to the objects at most the specified number of references away from the root.
+     * <p>
+     * The root is at depth 0, so a maximum depth of 0 creates a shallow copy of the root.
+     * Deeper objects are shared with the original, unless they have already been copied
+     * on a shorter path.
+     * </p>
+     *
+     * @param maxDepth The maximum depth of copied objects
+     * @return Options with the depth limit applied
+     * @throws IllegalArgumentException If the depth is negative
+     */
+    public CopyOptions withMaxDepth(final int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Maximum depth must not be negative: " + maxDepth);
+        }
+        final CopyOptions options = new CopyOptions(this);
+        options.maxDepth = maxDepth;
+        return options;
+    }
+
+    /**
+     * Limits the copy to the specified field paths, sharing everything else with the original.
+     * <p>
+     * Paths are dot separated field names starting at the root, where {@code [*]} stands for
+     * all elements of an array or collection, or all values of a map, for instance
+     * {@code "order.lines[*].price"}. The objects along a path are copied shallowly and the
+     * object at its end is copied entirely.
+     * </p>
+     *
+     * @param paths The field paths to copy
+     * @return Options with the path selection applied
+     * @throws IllegalArgumentException If a path is malformed
+     */
+    public CopyOptions withPaths(final String... paths) {
+        final CopyOptions options = new CopyOptions(this);
+        options.paths = PathSelector.of(paths);
+        return options;
+    }
+
+    /**
+     * Aborts the copy with a {@link CopyBudgetExceededException} once more objects are copied.
+     * <p>
+     * Shared immutable values are not counted.
+     * </p>
+     *
+     * @param maxObjects The maximum number of copied objects
+     * @return Options with the object limit applied
+     * @throws IllegalArgumentException If the limit is negative
+     */
+    public CopyOptions withMaxObjects(final long maxObjects) {
+        if (maxObjects < 0) {
+            throw new IllegalArgumentException("Maximum object count must not be negative: " + maxObjects);
+        }
+        final CopyOptions options = new CopyOptions(this);
+        options.maxObjects = maxObjects;
+        return options;
+    }
+
+    /**
+     * Aborts the copy with a {@link CopyBudgetExceededException} once the estimated size of the
+     * copied objects grows larger.
+     * <p>
+     * Sizes are shallow size estimates for a 64-bit JVM with compressed references.
+     * </p>
+     *
+     * @param maxBytes The maximum estimated size of the copied objects in bytes
+     * @return Options with the size limit applied
+     * @throws IllegalArgumentException If the limit is negative
+     */
+    public CopyOptions withMaxBytes(final long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Maximum size must not be negative: " + maxBytes);
+        }
+        final CopyOptions options = new CopyOptions(this);
+        options.maxBytes = maxBytes;
+        return options;
+    }
+
+    /**
+     * Aborts the copy with a {@link CopyBudgetExceededException} once it runs longer.
+     * <p>
+     * The clock is checked periodically while objects are copied, so the copy may overrun
+     * the limit by the time needed to copy a few hundred objects.
+     * </p>
+     *
+     * @param maxTime The maximum duration of the copy
+     * @return Options with the time limit applied
+     * @throws IllegalArgumentException If the duration is negative
+     */
+    public CopyOptions withMaxTime(final Duration maxTime) {
+        if (maxTime.isNegative()) {
+            throw new IllegalArgumentException("Maximum time must not be negative: " + maxTime);
+        }
+        final CopyOptions options = new CopyOptions(this);
+        options.maxTime = maxTime;
+        return options;
+    }
+
+    /**
+     * Presizes the map of copied objects for the specified number of objects.
+     * <p>
+     * Avoids rehashing the map while copying large graphs. The count is a hint, not a limit,
+     * and is typically taken from {@link GraphStats#objectCount()} of a previous
+     * {@link CopyUtils#measure(Object, CopyOptions) measurement}.
+     * </p>
+     *
+     * @param expectedObjects The expected number of copied objects
+     * @return Options with the expected object count applied
+     * @throws IllegalArgumentException If the count is negative
+     */
+    public CopyOptions withExpectedObjects(final int expectedObjects) {
+        if (expectedObjects < 0) {
+            throw new IllegalArgumentException("Expected object count must not be negative: " + expectedObjects);
+        }
+        final CopyOptions options = new CopyOptions(this);
+        options.expectedObjects = expectedObjects;
+        return options;
+    }
+
+    /**
+     * Replaces equal values of the types registered with the table by a canonical instance.
+     * <p>
+     * Interned values are shared instead of copied, so a copy of a graph holding many equal
+     * strings or numbers comes out smaller than the original. Set elements and map keys
+     * are interned as well, except the keys of an {@link java.util.IdentityHashMap}, whose
+     * distinct but equal keys would otherwise be merged.
+     * </p>
+     *
+     * @param table The table of canonical instances, or null to disable interning
+     * @return Options with interning applied
+     */
+    public CopyOptions withInterning(final InternTable table) {
+        final CopyOptions options = new CopyOptions(this);
+        options.interning = table;
+        return options;
+    }
+
+    /**
+     * Shares byte arrays of at least the specified length with the original instead of copying them.
+     * <p>
+     * Large payloads are then referenced by both graphs without being duplicated. Neither
+     * graph may modify a shared array, callers that need to modify one replace it instead.
+     * </p>
+     *
+     * @param minLength The minimum length of shared byte arrays
+     * @return Options with byte array sharing applied
+     * @throws IllegalArgumentException If the length is negative
+     */
+    public CopyOptions withSharedByteArrays(final int minLength) {
+        if (minLength < 0) {
+            throw new IllegalArgumentException("Minimum length must not be negative: " + minLength);
+        }
+        final CopyOptions options = new CopyOptions(this);
+        options.sharedByteArrayLength = minLength;
+        return options;
+    }
+
+    int maxDepth() {
+        return maxDepth;
+    }
+
+    PathSelector paths() {
+        return paths;
+    }
+
+    long maxObjects() {
+        return maxObjects;
+    }
+
+    long maxBytes() {
+        return maxBytes;
+    }
+
+    Duration maxTime() {
+        return maxTime;
+    }
+
+    int expectedObjects() {
+        return expectedObjects;
+    }
+
+    InternTable interning() {
+        return interning;
+    }
+
+    int sharedByteArrayLength() {
+        return sharedByteArrayLength;
+    }
+}
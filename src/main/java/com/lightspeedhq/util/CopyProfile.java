@@ -0,0 +1,124 @@
+package com.lightspeedhq.util;
+
+import com.lightspeedhq.util.collections.CollectionOpFactory;
+import com.lightspeedhq.util.map.MapOpFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Warm-up profile of the classes seen by the deep copy.
+ * <p>
+ * Resolving the copy plan, constructor and collection or map op of a class is done
+ * reflectively the first time an instance of the class is copied, which makes the first
+ * copies after a start noticeably slower. A profile exported from a warmed-up process lists
+ * the planned classes, one fully qualified name per line, and can be preloaded by the next
+ * process so this work is done before the first copy instead of during it.
+ * </p>
+ */
+public final class CopyProfile {
+
+    /**
+     * Prefix of comment lines in a profile file.
+     */
+    private static final String COMMENT = "#";
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private CopyProfile() {
+    }
+
+    /**
+     * Writes the classes planned so far in this process to the specified profile file.
+     *
+     * @param path The profile file to write
+     * @return The number of classes written
+     * @throws IOException If the file cannot be written
+     */
+    public static int export(final Path path) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add(COMMENT + " deepcopy warm-up profile");
+        ClassPlan.plannedTypes().stream()
+                .filter(type -> !type.isPrimitive() && !type.isHidden())
+                .map(Class::getName)
+                .sorted(Comparator.naturalOrder())
+                .forEach(lines::add);
+        Files.write(path, lines, StandardCharsets.UTF_8);
+        return lines.size() - 1;
+    }
+
+    /**
+     * Resolves the copy plans, constructors and collection or map ops of all classes listed
+     * in a profile file.
+     * <p>
+     * Classes that cannot be loaded or planned, for instance because they were removed
+     * since the profile was exported, are skipped.
+     * </p>
+     *
+     * @param path The profile file to read
+     * @return The number of classes that were preloaded
+     * @throws IOException If the file cannot be read
+     */
+    public static int preload(final Path path) throws IOException {
+        final ClassLoader loader = classLoader();
+        int preloaded = 0;
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            final String name = line.strip();
+            if (name.isEmpty() || name.startsWith(COMMENT)) {
+                continue;
+            }
+            try {
+                final ClassPlan plan = ClassPlan.of(Class.forName(name, false, loader));
+                if (plan.cloner() == null && (plan.kind() == ClassPlan.Kind.OBJECT
+                        || plan.kind() == ClassPlan.Kind.COLLECTION || plan.kind() == ClassPlan.Kind.MAP)) {
+                    InstantiateUtils.prepare(plan.type());
+                }
+                if (plan.kind() == ClassPlan.Kind.COLLECTION) {
+                    CollectionOpFactory.prepare(plan.type());
+                } else if (plan.kind() == ClassPlan.Kind.MAP) {
+                    MapOpFactory.prepare(plan.type());
+                }
+                preloaded++;
+            } catch (ClassNotFoundException | LinkageError | RuntimeException e) {
+                // stale or inaccessible entry, it is resolved lazily if it is ever copied
+            }
+        }
+        return preloaded;
+    }
+
+    /**
+     * Preloads a profile file on a background daemon thread.
+     *
+     * @param path The profile file to read
+     * @return A future completed with the number of preloaded classes
+     * @see #preload(Path)
+     */
+    public static CompletableFuture<Integer> preloadAsync(final Path path) {
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+        Thread.ofPlatform().name("deepcopy-profile-preload").daemon().start(() -> {
+            try {
+                result.complete(preload(path));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the class loader used to resolve profile classes.
+     *
+     * @return The context class loader of the current thread, or the loader of this class
+     */
+    private static ClassLoader classLoader() {
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return loader != null ? loader : CopyProfile.class.getClassLoader();
+    }
+}
@@ -7,12 +7,18 @@ import com.lightspeedhq.util.map.MapOpFactory;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.function.Consumer;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Utility class for creating deep copies of objects.
@@ -25,19 +31,9 @@ import java.util.function.Consumer;
 public final class CopyUtils {
 
     /**
-     * Set of immutable classes that don't need deep copying.
-     * <p>
-     * Objects of these classes can be shared between the original and copied object
-     * graph since they cannot be modified.
-     * </p>
+     * Path segment reported for map values, which have no index.
      */
-    private static final Set<Class<?>> IMMUTABLES = Set.of(
-            Integer.class, Long.class,
-            String.class, Boolean.class,
-            Double.class, Float.class,
-            Character.class, Byte.class,
-            Short.class, Void.class
-    );
+    private static final String ANY_ELEMENT = "[*]";
 
     /**
      * Creates a deep copy of the provided object.
@@ -51,9 +47,114 @@ public final class CopyUtils {
      * @return A deep copy of the provided object
      * @throws Exception If an error occurs during the copying process
      */
-    @SuppressWarnings("unchecked")
     public static <T> T deepCopy(final T obj) throws Exception {
-        return (T) internalDeepCopy(new IdentityHashMap<>(), obj);
+        return deepCopy(obj, CopyOptions.defaults());
+    }
+
+    /**
+     * Creates a copy of the provided object as specified by the provided options.
+     * <p>
+     * With default options this is a complete deep copy. Options may limit the copy to a
+     * maximum depth or to selected field paths, sharing the remaining objects with the
+     * original graph. Options may also set limits on the resources spent by the copy.
+     * </p>
+     *
+     * @param obj     The object to copy
+     * @param options The options controlling the copy
+     * @param <T>     The type of the object
+     * @return A copy of the provided object
+     * @throws CopyBudgetExceededException If the copy exceeds a limit set by the options
+     * @throws Exception                   If an error occurs during the copying process
+     */
+    public static <T> T deepCopy(final T obj, final CopyOptions options) throws Exception {
+        return deepCopy(obj, options, new CopyContext(options));
+    }
+
+    /**
+     * Creates a copy of the provided object within the provided copy state.
+     *
+     * @param obj     The object to copy
+     * @param options The options controlling the copy
+     * @param context The state of the copy, possibly holding copies of earlier objects
+     * @param <T>     The type of the object
+     * @return A copy of the provided object
+     * @throws Exception If an error occurs during the copying process
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T deepCopy(final T obj, final CopyOptions options, final CopyContext context) throws Exception {
+        try {
+            return (T) internalDeepCopy(context, obj, 0, options.paths());
+        } catch (CopyBudgetExceededException e) {
+            throw e.withCopied(context.copied);
+        }
+    }
+
+    /**
+     * Creates a deep copy of the provided object asynchronously.
+     * <p>
+     * The copy runs on the {@link AsyncCopier#defaults() default copier}, on a virtual thread
+     * with bounded concurrency. Callers needing another executor or other limits use their
+     * own {@link AsyncCopier}.
+     * </p>
+     * <p>
+     * The graph is read while the copy runs. It must not be modified until the returned future
+     * completes, otherwise the copy may silently mix old and new state.
+     * </p>
+     *
+     * @param obj The object to deep copy
+     * @param <T> The type of the object
+     * @return A future completed with the copy, or with the exception of the copy
+     * @throws java.util.concurrent.RejectedExecutionException If too many copies are pending
+     */
+    public static <T> CompletableFuture<T> deepCopyAsync(final T obj) {
+        return AsyncCopier.defaults().copy(obj);
+    }
+
+    /**
+     * Creates a copy of the provided object as specified by the provided options asynchronously.
+     * <p>
+     * The object graph must not be modified until the returned future completes.
+     * </p>
+     *
+     * @param obj     The object to copy
+     * @param options The options controlling the copy
+     * @param <T>     The type of the object
+     * @return A future completed with the copy, or with the exception of the copy
+     * @throws java.util.concurrent.RejectedExecutionException If too many copies are pending
+     * @see #deepCopyAsync(Object)
+     */
+    public static <T> CompletableFuture<T> deepCopyAsync(final T obj, final CopyOptions options) {
+        return AsyncCopier.defaults().copy(obj, options);
+    }
+
+    /**
+     * Measures what a deep copy of the provided object would copy, without copying it.
+     *
+     * @param obj The object to measure
+     * @return The measurements of the graph a deep copy would copy
+     * @throws Exception If an error occurs while traversing the graph
+     */
+    public static GraphStats measure(final Object obj) throws Exception {
+        return measure(obj, CopyOptions.defaults());
+    }
+
+    /**
+     * Measures what a copy of the provided object with the provided options would copy.
+     * <p>
+     * The graph is traversed by the copy itself running as a dry run, so the measurement
+     * follows the same sharing, interning, depth and path rules, but no copy is allocated.
+     * Resource limits of the options do not apply to the measurement.
+     * </p>
+     *
+     * @param obj     The object to measure
+     * @param options The options of the copy to measure
+     * @return The measurements of the graph the copy would copy
+     * @throws Exception If an error occurs while traversing the graph
+     */
+    public static GraphStats measure(final Object obj, final CopyOptions options) throws Exception {
+        final CopyContext context = CopyContext.measuring(options);
+        internalDeepCopy(context, obj, 0, options.paths());
+        return context.meter.stats();
     }
 
     /**
@@ -63,105 +164,456 @@ public final class CopyUtils {
      * already copied objects to handle circular references.
      * </p>
      *
-     * @param converted Map of original objects to their corresponding copies
-     * @param obj       The object to copy
-     * @return A deep copy of the provided object
+     * @param context  The state of the running copy
+     * @param obj      The object to copy
+     * @param depth    The number of references between the root and the object
+     * @param selector The selector of the object, or null if the object is not selected
+     * @return A deep copy of the provided object, or the object itself if it is shared
      * @throws Exception If an error occurs during the copying process
      */
     @SuppressWarnings("unchecked")
-    private static Object internalDeepCopy(final Map<Object, Object> converted, final Object obj) throws Exception {
+    private static Object internalDeepCopy(final CopyContext context, final Object obj, final int depth,
+                                           final PathSelector selector) throws Exception {
         if (obj == null) {
             return null;
         }
 
-        final Class<?> clazz = obj.getClass();
+        final ClassPlan plan = ClassPlan.of(obj.getClass());
+        final Class<?> clazz = plan.type();
+
+        // Interned values are replaced by their canonical instance, a dry run leaves the table untouched
+        if (context.interning != null && context.interning.accepts(clazz)) {
+            return context.meter == null ? context.interning.intern(obj) : obj;
+        }
 
         // Immutable objects handled as is
-        if (clazz.isPrimitive() || clazz.isEnum() || IMMUTABLES.contains(clazz)) {
+        if (plan.kind() == ClassPlan.Kind.IMMUTABLE || isShared(plan, obj, context.sharedByteArrayLength)) {
             return obj;
-        } else if (converted.containsKey(obj)) {
-            return converted.get(obj);
+        }
+        final Object existingCopy = context.converted.get(obj);
+        if (existingCopy != null) {
+            return existingCopy;
         }
 
-        // Handling array objects
-        if (clazz.isArray()) {
-            final int length = Array.getLength(obj);
-            final Object arrayCopy = Array.newInstance(clazz.componentType(), length);
-            converted.put(obj, arrayCopy);
-            for (int i = 0; i < length; i++) {
-                final Object element = Array.get(obj, i);
-                final Object copyElement = internalDeepCopy(converted, element);
-                Array.set(arrayCopy, i, copyElement);
+        // Objects outside the copied part of the graph are shared
+        if (selector == null || depth > context.maxDepth) {
+            return obj;
+        }
+        if (context.budget != null) {
+            context.budget.charge(obj, plan);
+        }
+        final int childDepth = depth + 1;
+
+        // A dry run records the object and visits what its copy would copy, without copying
+        if (context.meter != null) {
+            context.meter.record(obj, plan, depth);
+            context.converted.put(obj, obj);
+            visitReferences(context, plan, obj, childDepth, selector);
+            return obj;
+        }
+
+        // Optionals are value based and transparent to paths, only their content may need a copy
+        if (plan.kind() == ClassPlan.Kind.OPTIONAL) {
+            final Optional<?> optional = (Optional<?>) obj;
+            if (optional.isEmpty()) {
+                return optional;
             }
-            return arrayCopy;
+            final Object value = optional.get();
+            final Object copyValue = internalDeepCopy(context, value, childDepth, selector);
+            final Optional<?> optionalCopy = copyValue == value ? optional : Optional.of(copyValue);
+            context.converted.put(optional, optionalCopy);
+            return optionalCopy;
+        }
+
+        // Handling array objects
+        if (plan.kind() == ClassPlan.Kind.ARRAY) {
+            return copyArray(context, clazz, obj, childDepth, selector.elements());
+        }
+
+        // Handling writable byte buffers
+        if (plan.kind() == ClassPlan.Kind.BUFFER) {
+            final ByteBuffer bufferCopy = copyBuffer((ByteBuffer) obj);
+            context.converted.put(obj, bufferCopy);
+            return bufferCopy;
         }
 
         // Handling collections
-        if (obj instanceof Collection<?>) {
+        if (plan.kind() == ClassPlan.Kind.COLLECTION) {
             final Collection<Object> collection = (Collection<Object>) obj;
+            final PathSelector elementSelector = selector.elements();
 
-            ICollectionOp collectionCopyOp = CollectionOpFactory.of(clazz.getName());
+            if (canClone(plan, collection)) {
+                return cloneCollection(context, plan, collection, childDepth, elementSelector);
+            }
+
+            ICollectionOp collectionCopyOp = CollectionOpFactory.of(clazz);
 
-            for (Object o : collection) {
-                collectionCopyOp.add(internalDeepCopy(converted, o));
+            int index = 0;
+            try {
+                for (Object o : collection) {
+                    collectionCopyOp.add(internalDeepCopy(context, o, childDepth, elementSelector));
+                    index++;
+                }
+            } catch (CopyBudgetExceededException e) {
+                throw e.within("[" + index + "]");
             }
             Collection<Object> collectionCopy = collectionCopyOp.getCollection();
-            converted.put(collection, collectionCopy);
+            context.converted.put(collection, collectionCopy);
             return collectionCopy;
         }
 
         // Handling maps
-        if (obj instanceof Map<?, ?>) {
+        if (plan.kind() == ClassPlan.Kind.MAP) {
             final Map<Object, Object> map = (Map<Object, Object>) obj;
+            final PathSelector valueSelector = selector.elements();
 
-            IMapOp mapCopyOp = MapOpFactory.of(clazz.getName());
+            if (canClone(plan, map)) {
+                return cloneMap(context, plan, map, childDepth, valueSelector);
+            }
+
+            IMapOp mapCopyOp = MapOpFactory.of(clazz);
 
-            for (Map.Entry<?, ?> entry : map.entrySet()) {
-                final Object copyKey = internalDeepCopy(converted, entry.getKey());
-                final Object copyValue = internalDeepCopy(converted, entry.getValue());
-                mapCopyOp.put(copyKey, copyValue);
+            final PathSelector keySelector = selector.keys();
+            // interning the keys of an identity map would merge distinct but equal keys
+            final boolean identityKeys = context.interning != null && map instanceof IdentityHashMap<?, ?>;
+            try {
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    final Object key = entry.getKey();
+                    final Object copyKey = identityKeys && key != null && context.interning.accepts(key.getClass())
+                            ? key : internalDeepCopy(context, key, childDepth, keySelector);
+                    final Object copyValue = internalDeepCopy(context, entry.getValue(), childDepth, valueSelector);
+                    mapCopyOp.put(copyKey, copyValue);
+                }
+            } catch (CopyBudgetExceededException e) {
+                throw e.within(ANY_ELEMENT);
             }
             Map<Object, Object> mapCopy = mapCopyOp.getMap();
-            converted.put(map, mapCopy);
+            context.converted.put(map, mapCopy);
             return mapCopy;
         }
 
+        // Handling cloneable objects, only references need to be replaced in the clone
+        if (plan.cloner() != null) {
+            final Object objCopy = shallowClone(plan, obj);
+            context.converted.put(obj, objCopy);
+            for (Field field : plan.referenceFields()) {
+                final Object value = field.get(obj);
+                final Object copyValue = copyField(context, field, value, childDepth, selector);
+                if (copyValue != value) {
+                    field.set(objCopy, copyValue);
+                }
+            }
+            return objCopy;
+        }
+
         // Handling other objects
         final Object objCopy = InstantiateUtils.instantiate(clazz);
-        converted.put(obj, objCopy);
-        visitSupers(clazz, aClass -> {
-            Field[] fields = aClass.getDeclaredFields();
-            for (Field field : fields) {
-                if (!Modifier.isStatic(field.getModifiers())) {
-                    field.setAccessible(true);
-                    try {
-                        final Object value = field.get(obj);
-                        final Object copyValue = internalDeepCopy(converted, value);
-                        field.set(objCopy, copyValue);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
+        context.converted.put(obj, objCopy);
+        for (Field field : plan.fields()) {
+            final Object value = field.get(obj);
+            final Object copyValue = copyField(context, field, value, childDepth, selector);
+            field.set(objCopy, copyValue);
+        }
+        return objCopy;
+    }
+
+    /**
+     * Visits the objects a copy of the provided object would copy, as part of a dry run.
+     *
+     * @param context  The state of the dry run
+     * @param plan     The plan of the object class
+     * @param obj      The object whose references are visited
+     * @param depth    The depth of the referenced objects
+     * @param selector The selector of the object
+     * @throws Exception If a referenced object cannot be read
+     */
+    private static void visitReferences(final CopyContext context, final ClassPlan plan, final Object obj,
+                                        final int depth, final PathSelector selector) throws Exception {
+        switch (plan.kind()) {
+            case OPTIONAL -> internalDeepCopy(context, ((Optional<?>) obj).orElse(null), depth, selector);
+            case ARRAY -> {
+                if (obj instanceof Object[] array) {
+                    final PathSelector elementSelector = selector.elements();
+                    for (Object element : array) {
+                        internalDeepCopy(context, element, depth, elementSelector);
                     }
                 }
             }
-        });
-        return objCopy;
+            case COLLECTION -> {
+                final PathSelector elementSelector = selector.elements();
+                for (Object element : (Collection<?>) obj) {
+                    internalDeepCopy(context, element, depth, elementSelector);
+                }
+            }
+            case MAP -> {
+                final PathSelector keySelector = selector.keys();
+                final PathSelector valueSelector = selector.elements();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+                    internalDeepCopy(context, entry.getKey(), depth, keySelector);
+                    internalDeepCopy(context, entry.getValue(), depth, valueSelector);
+                }
+            }
+            case OBJECT -> {
+                for (Field field : plan.referenceFields()) {
+                    internalDeepCopy(context, field.get(obj), depth, selector.field(field.getName()));
+                }
+            }
+            default -> {
+                // buffers hold no references
+            }
+        }
+    }
+
+    /**
+     * Copies the value of a field, recording the field in the path of an exceeded budget.
+     *
+     * @param context  The state of the running copy
+     * @param field    The field holding the value
+     * @param value    The value to copy
+     * @param depth    The depth of the value
+     * @param selector The selector of the object holding the field
+     * @return A deep copy of the value, or the value itself if it is shared
+     * @throws Exception If an error occurs during the copying process
+     */
+    private static Object copyField(final CopyContext context, final Field field, final Object value,
+                                    final int depth, final PathSelector selector) throws Exception {
+        try {
+            return internalDeepCopy(context, value, depth, selector.field(field.getName()));
+        } catch (CopyBudgetExceededException e) {
+            throw e.within(field.getName());
+        }
     }
 
     /**
-     * Visits a class and all its superclasses, applying the provided consumer to each.
+     * Copies an array.
      * <p>
-     * This method traverses the class hierarchy from the given class up to Object,
-     * applying the provided consumer to each class in the hierarchy.
+     * Primitive arrays are copied in bulk. Reference arrays are cloned and only the
+     * elements that are not shared with the original are replaced afterwards.
      * </p>
      *
-     * @param clazz         The starting class
-     * @param classConsumer Consumer to apply to each class in the hierarchy
+     * @param context  The state of the running copy
+     * @param clazz    The class of the array
+     * @param array    The array to copy
+     * @param depth    The depth of the array elements
+     * @param selector The selector of the array elements
+     * @return A deep copy of the array
+     * @throws Exception If an error occurs during the copying process
      */
-    private static void visitSupers(final Class<?> clazz, final Consumer<Class<?>> classConsumer) {
-        Class<?> current = clazz;
-        while (current != null) {
-            classConsumer.accept(current);
-            current = current.getSuperclass();
+    private static Object copyArray(final CopyContext context, final Class<?> clazz, final Object array,
+                                    final int depth, final PathSelector selector) throws Exception {
+        if (clazz.componentType().isPrimitive()) {
+            final int length = Array.getLength(array);
+            final Object arrayCopy = Array.newInstance(clazz.componentType(), length);
+            System.arraycopy(array, 0, arrayCopy, 0, length);
+            context.converted.put(array, arrayCopy);
+            return arrayCopy;
+        }
+        final Object[] arrayCopy = ((Object[]) array).clone();
+        context.converted.put(array, arrayCopy);
+        int i = 0;
+        try {
+            for (; i < arrayCopy.length; i++) {
+                final Object element = arrayCopy[i];
+                final Object copyElement = internalDeepCopy(context, element, depth, selector);
+                if (copyElement != element) {
+                    arrayCopy[i] = copyElement;
+                }
+            }
+        } catch (CopyBudgetExceededException e) {
+            throw e.within("[" + i + "]");
+        }
+        return arrayCopy;
+    }
+
+    /**
+     * Copies a writable byte buffer in bulk.
+     * <p>
+     * The copy is heap or direct like the original and has the same capacity, position, limit
+     * and byte order, the mark is not kept. Its content is not shared with the original, even
+     * if the original wraps an array or is a slice of another buffer.
+     * </p>
+     *
+     * @param buffer The buffer to copy
+     * @return A new buffer with the content of the original
+     */
+    private static ByteBuffer copyBuffer(final ByteBuffer buffer) {
+        final int capacity = buffer.capacity();
+        final ByteBuffer bufferCopy = buffer.isDirect()
+                ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        bufferCopy.put(buffer.duplicate().clear());
+        bufferCopy.limit(buffer.limit()).position(buffer.position());
+        return bufferCopy.order(buffer.order());
+    }
+
+    /**
+     * Copies a collection by cloning it and replacing its elements with their copies.
+     *
+     * @param context    The state of the running copy
+     * @param plan       The plan of the collection class
+     * @param collection The collection to copy
+     * @param depth      The depth of the collection elements
+     * @param selector   The selector of the collection elements
+     * @return A deep copy of the collection
+     * @throws Exception If an error occurs during the copying process
+     */
+    @SuppressWarnings("unchecked")
+    private static Object cloneCollection(final CopyContext context, final ClassPlan plan,
+                                          final Collection<Object> collection, final int depth,
+                                          final PathSelector selector) throws Exception {
+        final Collection<Object> collectionCopy = (Collection<Object>) shallowClone(plan, collection);
+        context.converted.put(collection, collectionCopy);
+        int index = 0;
+        try {
+            if (collectionCopy instanceof List<Object> list) {
+                for (ListIterator<Object> it = list.listIterator(); it.hasNext(); index++) {
+                    final Object element = it.next();
+                    final Object copyElement = internalDeepCopy(context, element, depth, selector);
+                    if (copyElement != element) {
+                        it.set(copyElement);
+                    }
+                }
+            } else if (collectionCopy instanceof Deque<Object> deque) {
+                for (int size = deque.size(); index < size; index++) {
+                    deque.addLast(internalDeepCopy(context, deque.pollFirst(), depth, selector));
+                }
+            } else if (context.interning != null && collectionCopy instanceof Set<?>
+                    && !(collectionCopy instanceof EnumSet<?>)) {
+                // sets are refilled, keeping their comparator, so that elements can be interned
+                collectionCopy.clear();
+                for (Object element : collection) {
+                    collectionCopy.add(internalDeepCopy(context, element, depth, selector));
+                    index++;
+                }
+            }
+        } catch (CopyBudgetExceededException e) {
+            throw e.within("[" + index + "]");
+        }
+        return collectionCopy;
+    }
+
+    /**
+     * Copies a map by cloning it and replacing its values with their copies.
+     * <p>
+     * When values are interned the clone is refilled instead, so that keys are interned too.
+     * Enum maps and identity maps keep their keys, interning could merge the distinct keys of
+     * an identity map.
+     * </p>
+     *
+     * @param context  The state of the running copy
+     * @param plan     The plan of the map class
+     * @param map      The map to copy, with immutable keys only
+     * @param depth    The depth of the map values
+     * @param selector The selector of the map values
+     * @return A deep copy of the map
+     * @throws Exception If an error occurs during the copying process
+     */
+    @SuppressWarnings("unchecked")
+    private static Object cloneMap(final CopyContext context, final ClassPlan plan,
+                                   final Map<Object, Object> map, final int depth,
+                                   final PathSelector selector) throws Exception {
+        final Map<Object, Object> mapCopy = (Map<Object, Object>) shallowClone(plan, map);
+        context.converted.put(map, mapCopy);
+        try {
+            if (context.interning != null && !(mapCopy instanceof EnumMap<?, ?>)
+                    && !(mapCopy instanceof IdentityHashMap<?, ?>)) {
+                // maps are refilled, keeping their comparator, so that keys can be interned
+                mapCopy.clear();
+                for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                    mapCopy.put(internalDeepCopy(context, entry.getKey(), depth, PathSelector.ALL),
+                            internalDeepCopy(context, entry.getValue(), depth, selector));
+                }
+                return mapCopy;
+            }
+            for (Map.Entry<Object, Object> entry : mapCopy.entrySet()) {
+                final Object value = entry.getValue();
+                final Object copyValue = internalDeepCopy(context, value, depth, selector);
+                if (copyValue != value) {
+                    entry.setValue(copyValue);
+                }
+            }
+        } catch (CopyBudgetExceededException e) {
+            throw e.within(ANY_ELEMENT);
+        }
+        return mapCopy;
+    }
+
+    /**
+     * Creates a shallow clone of an object through the clone handle of its plan.
+     *
+     * @param plan The plan of the object class
+     * @param obj  The object to clone
+     * @return The shallow clone
+     * @throws Exception If the clone operation fails
+     */
+    private static Object shallowClone(final ClassPlan plan, final Object obj) throws Exception {
+        try {
+            return (Object) plan.cloner().invokeExact(obj);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Checks whether a mutable object is shared with the original instead of copied.
+     * <p>
+     * Read-only byte buffers are shared since they cannot be modified through themselves.
+     * A read-only view still sees writes to the buffer it was created from, and the public
+     * buffer API does not tell which buffer that is. A graph holding both a writable buffer
+     * and a read-only view of it gets a copy of the writable buffer while the view keeps
+     * reading the original content.
+     * </p>
+     * <p>
+     * Byte arrays reaching the length set by the options are shared on request.
+     * </p>
+     *
+     * @param plan                  The plan of the object class
+     * @param obj                   The object to check
+     * @param sharedByteArrayLength The minimum length of shared byte arrays
+     * @return True if the object is shared
+     */
+    private static boolean isShared(final ClassPlan plan, final Object obj, final int sharedByteArrayLength) {
+        return plan.kind() == ClassPlan.Kind.BUFFER ? ((ByteBuffer) obj).isReadOnly()
+                : obj instanceof byte[] bytes && bytes.length >= sharedByteArrayLength;
+    }
+
+    /**
+     * Checks whether a collection or map can be copied by cloning it.
+     * <p>
+     * Clones only have their elements or values replaced, so sets and maps qualify only
+     * when their elements or keys can be shared. Enum sets and maps always do.
+     * </p>
+     *
+     * @param plan The plan of the container class
+     * @param obj  The collection or map to copy
+     * @return True if the container has a clone operation that yields a correct copy
+     */
+    private static boolean canClone(final ClassPlan plan, final Object obj) {
+        if (plan.cloner() == null) {
+            return false;
+        } else if (obj instanceof EnumSet<?> || obj instanceof EnumMap<?, ?>) {
+            return true;
+        } else if (obj instanceof Set<?> set) {
+            return allImmutable(set);
+        } else if (obj instanceof Map<?, ?> map) {
+            return allImmutable(map.keySet());
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether all the provided values can be shared instead of copied.
+     *
+     * @param values The values to check
+     * @return True if every value is null or of an immutable class
+     */
+    private static boolean allImmutable(final Collection<?> values) {
+        for (Object value : values) {
+            if (value != null && ClassPlan.of(value.getClass()).kind() != ClassPlan.Kind.IMMUTABLE) {
+                return false;
+            }
         }
+        return true;
     }
 }
@@ -0,0 +1,43 @@
+package com.lightspeedhq.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Accumulates the measurements of a dry-run copy.
+ * <p>
+ * A copy context holding a meter runs the regular copy traversal without creating copies.
+ * Every object is recorded at the point where a real copy charges its budget, so the
+ * measurement counts exactly the objects a copy with the same options would copy.
+ * </p>
+ */
+final class GraphMeter {
+
+    private final Map<Class<?>, Long> histogram = new HashMap<>();
+    private long objectCount;
+    private long estimatedBytes;
+    private int maxDepth = -1;
+
+    /**
+     * Records an object a copy would copy.
+     *
+     * @param obj   The object
+     * @param plan  The plan of the object class
+     * @param depth The number of references between the root and the object
+     */
+    void record(final Object obj, final ClassPlan plan, final int depth) {
+        objectCount++;
+        estimatedBytes += plan.estimateSize(obj);
+        histogram.merge(plan.type(), 1L, Long::sum);
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    /**
+     * Returns the measurements recorded so far.
+     *
+     * @return The measurements of the traversed graph
+     */
+    GraphStats stats() {
+        return new GraphStats(objectCount, estimatedBytes, maxDepth, histogram);
+    }
+}
@@ -0,0 +1,78 @@
+package com.lightspeedhq.util;
+
+import java.util.Map;
+
+/**
+ * Measurements of the part of an object graph a deep copy would copy.
+ * <p>
+ * Produced by {@link CopyUtils#measure(Object, CopyOptions)} without copying anything.
+ * Sizes are shallow size estimates for a 64-bit JVM with compressed references. The object
+ * count can be passed to {@link CopyOptions#withExpectedObjects(int)} to presize the identity
+ * map of the subsequent copy.
+ * </p>
+ */
+public final class GraphStats {
+
+    private final long objectCount;
+    private final long estimatedBytes;
+    private final int maxDepth;
+    private final Map<Class<?>, Long> histogram;
+
+    GraphStats(final long objectCount, final long estimatedBytes, final int maxDepth,
+               final Map<Class<?>, Long> histogram) {
+        this.objectCount = objectCount;
+        this.estimatedBytes = estimatedBytes;
+        this.maxDepth = maxDepth;
+        this.histogram = Map.copyOf(histogram);
+    }
+
+    /**
+     * Returns the number of objects a copy would create, shared immutable values excluded.
+     *
+     * @return The number of copied objects
+     */
+    public long objectCount() {
+        return objectCount;
+    }
+
+    /**
+     * Returns the estimated size of the objects a copy would create.
+     *
+     * @return The estimated size in bytes
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Returns the largest depth of a copied object, the root being at depth 0.
+     * <p>
+     * Depths are counted along the path on which an object is first reached, which is
+     * the path the copy would take as well.
+     * </p>
+     *
+     * @return The maximum depth, or -1 if nothing would be copied
+     */
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the number of copied objects per class.
+     *
+     * @return An unmodifiable map of classes to their instance counts
+     */
+    public Map<Class<?>, Long> histogram() {
+        return histogram;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphStats{" +
+                "objectCount=" + objectCount +
+                ", estimatedBytes=" + estimatedBytes +
+                ", maxDepth=" + maxDepth +
+                ", histogram=" + histogram +
+                '}';
+    }
+}
@@ -4,6 +4,7 @@ import sun.misc.Unsafe;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.util.Optional;
 
 public final class InstantiateUtils {
 
@@ -16,6 +17,20 @@ public final class InstantiateUtils {
      */
     private static final Unsafe UNSAFE = getUnsafe();
 
+    /**
+     * Cache of resolved default constructors, stored with their class so that class loaders are not pinned.
+     * <p>
+     * An empty value records that the class has no default constructor and is
+     * allocated through Unsafe.
+     * </p>
+     */
+    private static final ClassValue<Optional<Constructor<?>>> CONSTRUCTORS = new ClassValue<>() {
+        @Override
+        protected Optional<Constructor<?>> computeValue(final Class<?> cls) {
+            return findDefaultConstructor(cls);
+        }
+    };
+
     private InstantiateUtils() {
     }
 
@@ -32,13 +47,38 @@ public final class InstantiateUtils {
      * @throws Exception If an error occurs during instantiation
      */
     public static Object instantiate(Class<?> cls) throws Exception {
+        final Optional<Constructor<?>> ctor = prepare(cls);
+        // if there is no default ctor allocate without constructor
+        return ctor.isPresent() ? ctor.get().newInstance() : UNSAFE.allocateInstance(cls);
+    }
+
+    /**
+     * Resolves and caches the way instances of the specified class are created.
+     * <p>
+     * Calling this method ahead of time moves the reflective constructor lookup out of
+     * the first {@link #instantiate(Class)} call. No instance is created.
+     * </p>
+     *
+     * @param cls The class to prepare
+     * @return The accessible default constructor, or empty if Unsafe allocation is used
+     */
+    static Optional<Constructor<?>> prepare(Class<?> cls) {
+        return CONSTRUCTORS.get(cls);
+    }
+
+    /**
+     * Looks up the default constructor of the specified class and makes it accessible.
+     *
+     * @param cls The class to inspect
+     * @return The default constructor, or empty if the class does not declare one
+     */
+    private static Optional<Constructor<?>> findDefaultConstructor(Class<?> cls) {
         try {
             Constructor<?> ctor = cls.getDeclaredConstructor();
             ctor.setAccessible(true);
-            return ctor.newInstance();
+            return Optional.of(ctor);
         } catch (NoSuchMethodException e) {
-            // if there is no default ctor allocate without constructor
-            return UNSAFE.allocateInstance(cls);
+            return Optional.empty();
         }
     }
 
@@ -0,0 +1,147 @@
+package com.lightspeedhq.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Bounded table of canonical instances of immutable values.
+ * <p>
+ * Equal values of the registered types are replaced by a single canonical instance, so a
+ * copy made with {@link CopyOptions#withInterning(InternTable)} holds one instance per
+ * distinct value instead of one per occurrence. Canonical instances are only weakly
+ * referenced, and the least recently used ones are evicted once the table is full, so the
+ * table never keeps values alive nor grows beyond its maximum size.
+ * </p>
+ * <p>
+ * Registered types must be immutable and define {@code equals} and {@code hashCode} by
+ * value. Their instances are shared with the copy instead of being copied. A table can be
+ * shared between threads and reused across copies to canonicalize values between them.
+ * </p>
+ */
+public final class InternTable {
+
+    private final Set<Class<?>> types;
+    private final Map<Key, Key> entries;
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    private InternTable(final int maxSize, final Set<Class<?>> types) {
+        this.types = types;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Key> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Creates a table interning values of the specified types.
+     * <p>
+     * Types are matched exactly, subclasses of a registered type are not interned.
+     * </p>
+     *
+     * @param maxSize The maximum number of canonical instances held by the table
+     * @param types   The immutable value types to intern, for instance {@code String.class}
+     * @return The intern table
+     * @throws IllegalArgumentException If the size is not positive, no type is provided, or
+     *                                  a type is an array, collection, map or optional
+     */
+    public static InternTable of(final int maxSize, final Class<?>... types) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maxSize);
+        }
+        if (types.length == 0) {
+            throw new IllegalArgumentException("At least one type must be interned");
+        }
+        for (Class<?> type : types) {
+            final ClassPlan.Kind kind = ClassPlan.of(type).kind();
+            if (kind != ClassPlan.Kind.IMMUTABLE && kind != ClassPlan.Kind.OBJECT) {
+                throw new IllegalArgumentException("Type is not a value type: " + type.getName());
+            }
+        }
+        return new InternTable(maxSize, Set.of(types));
+    }
+
+    /**
+     * Returns the canonical instance equal to the provided value.
+     * <p>
+     * The value itself becomes the canonical instance if the table holds no equal one.
+     * </p>
+     *
+     * @param value The value to intern, of a registered type
+     * @param <T>   The type of the value
+     * @return The canonical instance equal to the value
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T intern(final T value) {
+        expungeStaleEntries();
+        final Key existing = entries.get(new Key(value, null));
+        final Object canonical = existing == null ? null : existing.get();
+        if (canonical != null) {
+            return (T) canonical;
+        }
+        final Key key = new Key(value, queue);
+        entries.put(key, key);
+        return value;
+    }
+
+    /**
+     * Returns the number of canonical instances held by the table.
+     *
+     * @return The number of entries, including values collected since the last operation
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Checks whether the instances of a class are interned by this table.
+     *
+     * @param type The class to check
+     * @return True if the class is registered
+     */
+    boolean accepts(final Class<?> type) {
+        return types.contains(type);
+    }
+
+    private void expungeStaleEntries() {
+        for (Reference<?> ref; (ref = queue.poll()) != null; ) {
+            entries.remove(ref);
+        }
+    }
+
+    /**
+     * Weak reference to a value comparing by the value, a cleared key is only equal to itself.
+     */
+    private static final class Key extends WeakReference<Object> {
+
+        private final int hash;
+
+        Key(final Object value, final ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key) || hash != key.hash) {
+                return false;
+            }
+            final Object value = get();
+            return value != null && Objects.equals(value, key.get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.lightspeedhq.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tree of field paths selecting the parts of an object graph that are copied.
+ * <p>
+ * Paths are dot separated field names, where {@code [*]} selects all elements of an
+ * array or collection, or all values of a map, e.g. {@code "order.lines[*].price"}.
+ * Objects on a selected path are copied shallowly, sharing everything that is not
+ * selected, and the object at the end of a path is copied entirely.
+ * </p>
+ */
+final class PathSelector {
+
+    /**
+     * Selector copying everything it is applied to.
+     */
+    static final PathSelector ALL = new PathSelector();
+
+    /**
+     * Path segment selecting the content of arrays, collections and maps.
+     */
+    private static final String ELEMENTS = "[*]";
+
+    private final Map<String, PathSelector> children = new HashMap<>();
+
+    private PathSelector() {
+    }
+
+    /**
+     * Compiles the specified paths into a selector tree.
+     *
+     * @param paths The paths to select
+     * @return The root selector of the paths
+     * @throws IllegalArgumentException If a path is malformed
+     */
+    static PathSelector of(final String... paths) {
+        final PathSelector root = new PathSelector();
+        for (String path : paths) {
+            root.add(path, 0);
+        }
+        return root;
+    }
+
+    /**
+     * Returns the selector for the value of the specified field.
+     *
+     * @param name The name of the field
+     * @return The selector of the field value, or null if the value is shared
+     */
+    PathSelector field(final String name) {
+        return this == ALL ? ALL : children.get(name);
+    }
+
+    /**
+     * Returns the selector for the elements of an array or collection, or the values of a map.
+     *
+     * @return The selector of the elements, or null if the elements are shared
+     */
+    PathSelector elements() {
+        return this == ALL ? ALL : children.get(ELEMENTS);
+    }
+
+    /**
+     * Returns the selector for the keys of a map.
+     * <p>
+     * Keys are not addressable by paths, they are only copied along with the whole map.
+     * </p>
+     *
+     * @return The selector of the keys, or null if the keys are shared
+     */
+    PathSelector keys() {
+        return this == ALL ? ALL : null;
+    }
+
+    /**
+     * Adds the remainder of a path below this selector.
+     *
+     * @param path  The full path
+     * @param start The index of the first character of the remainder
+     * @throws IllegalArgumentException If the path is malformed
+     */
+    private void add(final String path, final int start) {
+        final int end = nextSegmentEnd(path, start);
+        final String segment = path.substring(start, end);
+        final int next = end < path.length() && path.charAt(end) == '.' ? end + 1 : end;
+        if (next == path.length()) {
+            children.put(segment, ALL);
+            return;
+        }
+        PathSelector child = children.get(segment);
+        if (child == ALL) {
+            return;
+        } else if (child == null) {
+            child = new PathSelector();
+            children.put(segment, child);
+        }
+        child.add(path, next);
+    }
+
+    /**
+     * Finds the end of the path segment starting at the specified index.
+     *
+     * @param path  The full path
+     * @param start The index of the first character of the segment
+     * @return The index following the segment
+     * @throws IllegalArgumentException If the segment is malformed
+     */
+    private static int nextSegmentEnd(final String path, final int start) {
+        if (path.startsWith(ELEMENTS, start)) {
+            return start + ELEMENTS.length();
+        }
+        int end = start;
+        while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+            end++;
+        }
+        if (end == start || end == path.length() - 1 && path.charAt(end) == '.'
+                || end < path.length() && path.charAt(end) == '[' && !path.startsWith(ELEMENTS, end)) {
+            throw new IllegalArgumentException("Malformed copy path: " + path);
+        }
+        return end;
+    }
+}
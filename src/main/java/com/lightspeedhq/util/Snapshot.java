@@ -0,0 +1,127 @@
+package com.lightspeedhq.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact, off-heap binary snapshot of an object graph.
+ * <p>
+ * A snapshot encodes a graph once, using the same per-class copy plans as
+ * {@link CopyUtils#deepCopy(Object)}, into a direct buffer that lives
+ * outside the garbage collected heap. Independent deep copies are then materialized from
+ * the snapshot on demand. Snapshots are immutable and can be materialized concurrently.
+ * </p>
+ * <p>
+ * A snapshot can be persisted with {@link #writeTo(Path)} and restored with {@link #map(Path)}.
+ * Restoring maps the file into memory without decoding it; pages are read lazily by the
+ * operating system as copies are materialized.
+ * </p>
+ *
+ * @param <T> The type of the root of the encoded graph
+ */
+public final class Snapshot<T> {
+
+    /**
+     * Magic number at the start of every persisted snapshot file.
+     */
+    private static final int MAGIC = 0x44435059;
+
+    /**
+     * Version of the persisted encoding, bumped on incompatible format changes.
+     */
+    private static final int VERSION = 3;
+
+    /**
+     * Size of the persisted file header: magic number followed by version.
+     */
+    private static final int HEADER_SIZE = 8;
+
+    private final ByteBuffer buffer;
+
+    private Snapshot(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Encodes the provided object graph into a new snapshot.
+     * <p>
+     * Later modifications of the graph are not reflected in the snapshot.
+     * </p>
+     *
+     * @param obj The root of the graph to encode
+     * @param <T> The type of the object
+     * @return A snapshot of the graph
+     * @throws IllegalArgumentException If the graph holds a sorted or access ordered container
+     *                                  whose order cannot be recreated, such as a container sorted
+     *                                  by a lambda comparator
+     * @throws Exception                If an error occurs during the encoding process
+     */
+    public static <T> Snapshot<T> of(final T obj) throws Exception {
+        return new Snapshot<>(SnapshotWriter.encode(obj));
+    }
+
+    /**
+     * Restores a snapshot persisted with {@link #writeTo(Path)} by memory-mapping its file.
+     * <p>
+     * The file must not be modified while the returned snapshot is in use.
+     * </p>
+     *
+     * @param path The snapshot file
+     * @param <T>  The type of the root of the encoded graph
+     * @return The snapshot stored in the file
+     * @throws IOException If the file cannot be mapped or is not a snapshot file
+     */
+    public static <T> Snapshot<T> map(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.remaining() < HEADER_SIZE || mapped.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            final int version = mapped.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            return new Snapshot<>(mapped.slice());
+        }
+    }
+
+    /**
+     * Persists the snapshot to the specified file, replacing its content.
+     *
+     * @param path The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void writeTo(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            final ByteBuffer body = buffer.duplicate();
+            while (header.hasRemaining() || body.hasRemaining()) {
+                channel.write(new ByteBuffer[]{header, body});
+            }
+        }
+    }
+
+    /**
+     * Materializes a new, independent copy of the encoded graph.
+     *
+     * @return A deep copy of the graph the snapshot was taken from
+     * @throws Exception If an error occurs during the decoding process
+     */
+    @SuppressWarnings("unchecked")
+    public T materialize() throws Exception {
+        return (T) SnapshotReader.decode(buffer);
+    }
+
+    /**
+     * Returns the number of bytes the encoded graph occupies off-heap.
+     *
+     * @return The size of the snapshot in bytes
+     */
+    public int size() {
+        return buffer.remaining();
+    }
+}
@@ -0,0 +1,205 @@
+package com.lightspeedhq.util;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.IllformedLocaleException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Constants of the binary snapshot encoding.
+ * <p>
+ * Every value in a snapshot starts with one of the tags below. Arrays, collections, maps
+ * and plain objects receive an identifier in encounter order, so later occurrences of the
+ * same instance are written as a {@link #REF} to that identifier. Classes are written by
+ * name on first use and by index afterwards; a class definition also records the declaring
+ * class, name and type of every planned field, so a snapshot cannot be decoded against a
+ * different class layout.
+ * </p>
+ * <p>
+ * Immutable values without a dedicated tag, such as clocks, locales whose parts cannot be
+ * recombined, and empty enum maps are stored
+ * in their Java serialization form, which is only decoded for immutable classes.
+ * </p>
+ * <p>
+ * Collections and maps record their order after their class, so sorted containers keep
+ * their comparator and linked hash maps their access order.
+ * </p>
+ */
+final class SnapshotFormat {
+
+    static final byte NULL = 0;
+    static final byte REF = 1;
+    static final byte BOOLEAN = 2;
+    static final byte BYTE = 3;
+    static final byte CHAR = 4;
+    static final byte SHORT = 5;
+    static final byte INT = 6;
+    static final byte LONG = 7;
+    static final byte FLOAT = 8;
+    static final byte DOUBLE = 9;
+    static final byte STRING = 10;
+    static final byte ENUM = 11;
+    static final byte ARRAY = 12;
+    static final byte COLLECTION = 13;
+    static final byte MAP = 14;
+    static final byte OBJECT = 15;
+    static final byte BIT_SET = 16;
+    static final byte OPTIONAL = 17;
+    static final byte ENUM_SET = 18;
+    static final byte ENUM_MAP = 19;
+    static final byte BIG_INTEGER = 20;
+    static final byte BIG_DECIMAL = 21;
+    static final byte SERIALIZED = 22;
+    static final byte BYTE_BUFFER = 23;
+    static final byte OPTIONAL_INT = 24;
+    static final byte OPTIONAL_LONG = 25;
+    static final byte OPTIONAL_DOUBLE = 26;
+    static final byte UUID_VALUE = 27;
+    static final byte LOCALE = 28;
+    static final byte CURRENCY = 29;
+    static final byte CLASS = 30;
+    static final byte TIME = 31;
+    static final byte COMPARATOR = 32;
+    static final byte REVERSED_COMPARATOR = 33;
+
+    /**
+     * Order of a collection or map written after its class: the default order of its type.
+     */
+    static final byte DEFAULT_ORDER = 0;
+
+    /**
+     * Order of a collection or map written after its class: the comparator written next.
+     */
+    static final byte COMPARATOR_ORDER = 1;
+
+    /**
+     * Order of a collection or map written after its class: the access order of a linked hash map.
+     */
+    static final byte ACCESS_ORDER = 2;
+
+    /**
+     * JDK comparators without accessible state, identified by their index in this list.
+     * <p>
+     * Reversed comparators are written as {@link #REVERSED_COMPARATOR} followed by the
+     * comparator they reverse.
+     * </p>
+     */
+    static final List<Comparator<?>> COMPARATORS = List.of(Comparator.naturalOrder(), Comparator.reverseOrder(),
+            String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * {@code java.time} types written as their ISO text, identified by their index in this list.
+     * <p>
+     * Zone identifiers of any subclass are written as {@link ZoneId}.
+     * </p>
+     */
+    static final List<Class<?>> TIME_TYPES = List.of(Instant.class, LocalDate.class, LocalTime.class,
+            LocalDateTime.class, OffsetDateTime.class, OffsetTime.class, ZonedDateTime.class, Duration.class,
+            Period.class, Year.class, YearMonth.class, MonthDay.class, ZoneId.class);
+
+    /**
+     * Parsers of the ISO text of the {@link #TIME_TYPES}, in the same order.
+     */
+    static final List<Function<String, Object>> TIME_PARSERS = List.of(Instant::parse, LocalDate::parse,
+            LocalTime::parse, LocalDateTime::parse, OffsetDateTime::parse, OffsetTime::parse, ZonedDateTime::parse,
+            Duration::parse, Period::parse, Year::parse, YearMonth::parse, MonthDay::parse, ZoneId::of);
+
+    /**
+     * Class index announcing an inline class definition.
+     */
+    static final int NEW_CLASS = -1;
+
+    /**
+     * Returns the extensions of a locale by their key.
+     *
+     * @param locale The locale
+     * @return The value of each extension, in key order
+     */
+    static Map<Character, String> localeExtensions(final Locale locale) {
+        final Map<Character, String> extensions = new LinkedHashMap<>();
+        for (Character key : locale.getExtensionKeys()) {
+            extensions.put(key, locale.getExtension(key));
+        }
+        return extensions;
+    }
+
+    /**
+     * Recreates a locale from its parts.
+     * <p>
+     * The language, country and variant go through {@link Locale#of(String, String, String)},
+     * which keeps legacy locales such as {@code no_NO_NY}, {@code ja_JP_JP} and
+     * {@code th_TH_TH} as they are. A script and extensions other than those implied by the
+     * legacy locale are added through a {@link Locale.Builder}.
+     * </p>
+     *
+     * @param language   The language
+     * @param script     The script
+     * @param country    The country
+     * @param variant    The variant
+     * @param extensions The extensions by key
+     * @return The locale
+     * @throws IllformedLocaleException If the parts cannot be combined
+     */
+    static Locale locale(final String language, final String script, final String country, final String variant,
+                         final Map<Character, String> extensions) {
+        final Locale base = Locale.of(language, country, variant);
+        if (base.getScript().equals(script) && localeExtensions(base).equals(extensions)) {
+            return base;
+        }
+        final Locale.Builder builder = new Locale.Builder().setLocale(base).setScript(script).clearExtensions();
+        extensions.forEach(builder::setExtension);
+        return builder.build();
+    }
+
+    /**
+     * Returns the public constructor recreating a container of the specified class with its order.
+     * <p>
+     * Containers ordered by a comparator are created through a {@code (Comparator)} or
+     * {@code (int, Comparator)} constructor, access ordered maps through the
+     * {@code (int, float, boolean)} constructor of {@link java.util.LinkedHashMap}.
+     * </p>
+     *
+     * @param type        The container class
+     * @param accessOrder True for an access ordered map, false for a comparator
+     * @return The constructor
+     * @throws IllegalArgumentException If the class has no such public constructor
+     */
+    static Constructor<?> orderedConstructor(final Class<?> type, final boolean accessOrder) {
+        if (Modifier.isPublic(type.getModifiers())) {
+            for (Constructor<?> constructor : type.getConstructors()) {
+                final List<Class<?>> parameters = List.of(constructor.getParameterTypes());
+                if (accessOrder ? parameters.equals(List.of(int.class, float.class, boolean.class))
+                        : parameters.equals(List.of(Comparator.class))
+                        || parameters.equals(List.of(int.class, Comparator.class))) {
+                    return constructor;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported " + (accessOrder ? "access ordered " : "sorted ")
+                + type.getName() + ": no public constructor recreates its order");
+    }
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private SnapshotFormat() {
+    }
+}
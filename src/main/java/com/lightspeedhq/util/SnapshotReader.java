@@ -0,0 +1,569 @@
+package com.lightspeedhq.util;
+
+import com.lightspeedhq.util.collections.CollectionOpFactory;
+import com.lightspeedhq.util.collections.DefaultCollectionOp;
+import com.lightspeedhq.util.collections.ICollectionOp;
+import com.lightspeedhq.util.map.DefaultMapOp;
+import com.lightspeedhq.util.map.IMapOp;
+import com.lightspeedhq.util.map.MapOpFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import static com.lightspeedhq.util.SnapshotFormat.*;
+
+/**
+ * Decodes an object graph from the binary snapshot format.
+ * <p>
+ * Every decode produces a fresh, independent graph. Objects are instantiated and
+ * populated the same way the deep copy does it, through {@link InstantiateUtils} and
+ * the collection and map op factories.
+ * </p>
+ */
+final class SnapshotReader {
+
+    /**
+     * Placeholder of an object whose identifier is reserved but which does not exist yet.
+     */
+    private static final Object PENDING = new Object();
+
+    /**
+     * Primitive classes by name, which cannot be loaded through a class loader.
+     */
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = Map.of("boolean", boolean.class,
+            "byte", byte.class, "char", char.class, "short", short.class, "int", int.class, "long", long.class,
+            "float", float.class, "double", double.class, "void", void.class);
+
+    /**
+     * Restricts the Java serialization fallback to immutable classes and enum maps, so a
+     * tampered snapshot file cannot instantiate arbitrary serializable classes.
+     */
+    private static final ObjectInputFilter SERIALIZED_FILTER = info -> {
+        final Class<?> type = info.serialClass();
+        if (type == null) {
+            return ObjectInputFilter.Status.UNDECIDED;
+        }
+        return type == EnumMap.class || ClassPlan.of(type).kind() == ClassPlan.Kind.IMMUTABLE
+                ? ObjectInputFilter.Status.ALLOWED : ObjectInputFilter.Status.REJECTED;
+    };
+
+    private final ByteBuffer buffer;
+    private final List<Object> objects = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+
+    private SnapshotReader(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Decodes the graph held by the specified buffer.
+     *
+     * @param buffer The encoded graph; its position is not modified
+     * @return The root of the decoded graph
+     * @throws Exception If the graph cannot be instantiated or populated
+     */
+    static Object decode(final ByteBuffer buffer) throws Exception {
+        return new SnapshotReader(buffer.duplicate()).readValue();
+    }
+
+    /**
+     * Reads a tagged value, recursing into its referenced objects.
+     *
+     * @return The decoded value
+     * @throws Exception If the value cannot be instantiated or populated
+     */
+    private Object readValue() throws Exception {
+        final byte tag = buffer.get();
+        return switch (tag) {
+            case NULL -> null;
+            case REF -> readReference();
+            case BOOLEAN -> buffer.get() != 0;
+            case BYTE -> buffer.get();
+            case CHAR -> buffer.getChar();
+            case SHORT -> buffer.getShort();
+            case INT -> buffer.getInt();
+            case LONG -> buffer.getLong();
+            case FLOAT -> buffer.getFloat();
+            case DOUBLE -> buffer.getDouble();
+            case STRING -> readString();
+            case ENUM -> readClass().getEnumConstants()[buffer.getInt()];
+            case ARRAY -> readArray();
+            case COLLECTION -> readCollection();
+            case MAP -> readMap();
+            case OBJECT -> readObject();
+            case BIT_SET -> readBitSet();
+            case OPTIONAL -> Optional.ofNullable(readValue());
+            case ENUM_SET -> readEnumSet();
+            case ENUM_MAP -> readEnumMap();
+            case BIG_INTEGER -> new BigInteger(readBytes());
+            case BIG_DECIMAL -> readBigDecimal();
+            case SERIALIZED -> readSerialized();
+            case BYTE_BUFFER -> readBuffer();
+            case OPTIONAL_INT -> buffer.get() != 0 ? OptionalInt.of(buffer.getInt()) : skip(4, OptionalInt.empty());
+            case OPTIONAL_LONG -> buffer.get() != 0 ? OptionalLong.of(buffer.getLong()) : skip(8, OptionalLong.empty());
+            case OPTIONAL_DOUBLE -> buffer.get() != 0
+                    ? OptionalDouble.of(buffer.getDouble()) : skip(8, OptionalDouble.empty());
+            case UUID_VALUE -> new UUID(buffer.getLong(), buffer.getLong());
+            case LOCALE -> readLocale();
+            case CURRENCY -> Currency.getInstance(readString());
+            case CLASS -> readClassValue();
+            case TIME -> TIME_PARSERS.get(buffer.get()).apply(readString());
+            case COMPARATOR -> COMPARATORS.get(buffer.get());
+            case REVERSED_COMPARATOR -> ((Comparator<?>) readValue()).reversed();
+            default -> throw new IllegalStateException("Corrupted snapshot: unknown tag " + tag);
+        };
+    }
+
+    /**
+     * Reads a reference to an object decoded earlier.
+     *
+     * @return The referenced object
+     * @throws IllegalStateException If the referenced object is still being decoded and
+     *                               does not exist yet
+     */
+    private Object readReference() {
+        final Object obj = objects.get(buffer.getInt());
+        if (obj == PENDING) {
+            throw new IllegalStateException("Unsupported snapshot: reference to a container from its own content");
+        }
+        return obj;
+    }
+
+    /**
+     * Reads an array, bulk copying primitive components.
+     *
+     * @return The decoded array
+     * @throws Exception If an element cannot be decoded
+     */
+    private Object readArray() throws Exception {
+        final Class<?> type = readClass();
+        final int length = buffer.getInt();
+        final Object array = Array.newInstance(type.componentType(), length);
+        objects.add(array);
+        if (array instanceof byte[] a) {
+            buffer.get(a);
+        } else if (array instanceof int[] a) {
+            buffer.asIntBuffer().get(a);
+            buffer.position(buffer.position() + length * 4);
+        } else if (array instanceof long[] a) {
+            buffer.asLongBuffer().get(a);
+            buffer.position(buffer.position() + length * 8);
+        } else if (array instanceof double[] a) {
+            buffer.asDoubleBuffer().get(a);
+            buffer.position(buffer.position() + length * 8);
+        } else if (array instanceof float[] a) {
+            buffer.asFloatBuffer().get(a);
+            buffer.position(buffer.position() + length * 4);
+        } else if (array instanceof char[] a) {
+            buffer.asCharBuffer().get(a);
+            buffer.position(buffer.position() + length * 2);
+        } else if (array instanceof short[] a) {
+            buffer.asShortBuffer().get(a);
+            buffer.position(buffer.position() + length * 2);
+        } else if (array instanceof boolean[] a) {
+            for (int i = 0; i < length; i++) {
+                a[i] = buffer.get() != 0;
+            }
+        } else {
+            final Object[] elements = (Object[]) array;
+            for (int i = 0; i < length; i++) {
+                elements[i] = readValue();
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Reads a collection.
+     * <p>
+     * Collections created up front are registered before their elements are decoded, so
+     * elements can refer back to them. Collections only built once complete, such as
+     * {@code Arrays.asList}, cannot be referenced from their own elements.
+     * </p>
+     *
+     * @return The decoded collection
+     * @throws Exception If an element cannot be decoded
+     */
+    @SuppressWarnings("unchecked")
+    private Object readCollection() throws Exception {
+        final Class<?> type = readClass();
+        final int id = reserveId();
+        final Object ordered = readOrdered(type);
+        final int size = buffer.getInt();
+        if (ordered != null) {
+            final Collection<Object> collection = (Collection<Object>) ordered;
+            objects.set(id, collection);
+            for (int i = 0; i < size; i++) {
+                collection.add(readValue());
+            }
+            return collection;
+        }
+        final ICollectionOp collectionOp = CollectionOpFactory.of(type);
+        if (collectionOp instanceof DefaultCollectionOp) {
+            objects.set(id, collectionOp.getCollection());
+        }
+        for (int i = 0; i < size; i++) {
+            collectionOp.add(readValue());
+        }
+        final Object collection = collectionOp.getCollection();
+        objects.set(id, collection);
+        return collection;
+    }
+
+    /**
+     * Reads a map.
+     * <p>
+     * Maps created up front are registered before their entries are decoded, so keys and
+     * values can refer back to them.
+     * </p>
+     *
+     * @return The decoded map
+     * @throws Exception If an entry cannot be decoded
+     */
+    @SuppressWarnings("unchecked")
+    private Object readMap() throws Exception {
+        final Class<?> type = readClass();
+        final int id = reserveId();
+        final Object ordered = readOrdered(type);
+        final int size = buffer.getInt();
+        if (ordered != null) {
+            final Map<Object, Object> map = (Map<Object, Object>) ordered;
+            objects.set(id, map);
+            for (int i = 0; i < size; i++) {
+                final Object key = readValue();
+                map.put(key, readValue());
+            }
+            return map;
+        }
+        final IMapOp mapOp = MapOpFactory.of(type);
+        if (mapOp instanceof DefaultMapOp) {
+            objects.set(id, mapOp.getMap());
+        }
+        for (int i = 0; i < size; i++) {
+            final Object key = readValue();
+            final Object value = readValue();
+            mapOp.put(key, value);
+        }
+        final Object map = mapOp.getMap();
+        objects.set(id, map);
+        return map;
+    }
+
+    /**
+     * Reads the order of a collection or map and creates an empty container keeping it.
+     *
+     * @param type The container class
+     * @return The empty container, or null if the container has the default order of its type
+     * @throws Exception If the comparator cannot be decoded or the container cannot be created
+     */
+    private Object readOrdered(final Class<?> type) throws Exception {
+        final byte order = buffer.get();
+        if (order == DEFAULT_ORDER) {
+            return null;
+        } else if (order == ACCESS_ORDER) {
+            return orderedConstructor(type, true).newInstance(16, 0.75f, true);
+        }
+        final Object comparator = readValue();
+        final Constructor<?> constructor = orderedConstructor(type, false);
+        return constructor.getParameterCount() == 1
+                ? constructor.newInstance(comparator) : constructor.newInstance(16, comparator);
+    }
+
+    /**
+     * Reads a plain object field by field, following the plan of its class.
+     *
+     * @return The decoded object
+     * @throws Exception If the object cannot be instantiated or populated
+     */
+    private Object readObject() throws Exception {
+        final Class<?> type = readClass();
+        final Object obj = InstantiateUtils.instantiate(type);
+        objects.add(obj);
+        for (Field field : ClassPlan.of(type).fields()) {
+            if (field.getType().isPrimitive()) {
+                readPrimitiveField(field, obj);
+            } else {
+                field.set(obj, readValue());
+            }
+        }
+        return obj;
+    }
+
+    /**
+     * Reads a bit set from its words.
+     *
+     * @return The decoded bit set
+     */
+    private Object readBitSet() {
+        final int id = reserveId();
+        final long[] words = new long[buffer.getInt()];
+        buffer.asLongBuffer().get(words);
+        buffer.position(buffer.position() + words.length * 8);
+        final BitSet bits = BitSet.valueOf(words);
+        objects.set(id, bits);
+        return bits;
+    }
+
+    /**
+     * Reads a byte buffer into a new heap or direct buffer, as the original was.
+     *
+     * @return The decoded buffer
+     */
+    private Object readBuffer() {
+        final boolean direct = buffer.get() != 0;
+        final boolean readOnly = buffer.get() != 0;
+        final ByteOrder order = buffer.get() == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        final int capacity = buffer.getInt();
+        final int position = buffer.getInt();
+        final int limit = buffer.getInt();
+        final ByteBuffer content = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        content.put(0, buffer, buffer.position(), capacity);
+        buffer.position(buffer.position() + capacity);
+        content.limit(limit).position(position);
+        final ByteBuffer result = (readOnly ? content.asReadOnlyBuffer() : content).order(order);
+        objects.add(result);
+        return result;
+    }
+
+    /**
+     * Reads an enum set from the ordinals of its elements.
+     *
+     * @return The decoded enum set
+     * @throws ClassNotFoundException If the enum class cannot be loaded
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnumSet() throws ClassNotFoundException {
+        final Class type = readClass();
+        final Enum<?>[] constants = (Enum<?>[]) type.getEnumConstants();
+        final EnumSet set = EnumSet.noneOf(type);
+        objects.add(set);
+        for (int i = buffer.getInt(); i > 0; i--) {
+            set.add(constants[buffer.getInt()]);
+        }
+        return set;
+    }
+
+    /**
+     * Reads an enum map from the ordinals of its keys and their values.
+     *
+     * @return The decoded enum map
+     * @throws Exception If a value cannot be decoded
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnumMap() throws Exception {
+        final int id = reserveId();
+        final int size = buffer.getInt();
+        if (size == 0) {
+            final Object map = readSerialized();
+            objects.set(id, map);
+            return map;
+        }
+        final Class type = readClass();
+        final Enum<?>[] constants = (Enum<?>[]) type.getEnumConstants();
+        final EnumMap map = new EnumMap(type);
+        objects.set(id, map);
+        for (int i = 0; i < size; i++) {
+            final Enum<?> key = constants[buffer.getInt()];
+            map.put(key, readValue());
+        }
+        return map;
+    }
+
+    /**
+     * Reads a big decimal from its scale and unscaled value.
+     *
+     * @return The decoded big decimal
+     */
+    private Object readBigDecimal() {
+        final int scale = buffer.getInt();
+        return new BigDecimal(new BigInteger(readBytes()), scale);
+    }
+
+    /**
+     * Reads a value from its length-prefixed Java serialization form.
+     *
+     * @return The deserialized value
+     * @throws IOException            If the value cannot be deserialized
+     * @throws ClassNotFoundException If the class of the value cannot be loaded
+     */
+    private Object readSerialized() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(readBytes()))) {
+            in.setObjectInputFilter(SERIALIZED_FILTER);
+            return in.readObject();
+        }
+    }
+
+    /**
+     * Skips the unused value of an empty primitive optional.
+     *
+     * @param length The length of the unused value in bytes
+     * @param value  The decoded empty optional
+     * @return The decoded empty optional
+     */
+    private Object skip(final int length, final Object value) {
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Reads a locale from its parts.
+     *
+     * @return The decoded locale
+     */
+    private Locale readLocale() {
+        final String language = readString();
+        final String script = readString();
+        final String country = readString();
+        final String variant = readString();
+        final Map<Character, String> extensions = new LinkedHashMap<>();
+        for (int count = buffer.get(); count > 0; count--) {
+            final char key = buffer.getChar();
+            extensions.put(key, readString());
+        }
+        return locale(language, script, country, variant, extensions);
+    }
+
+    /**
+     * Reads a class value from its name.
+     *
+     * @return The decoded class
+     * @throws ClassNotFoundException If the class cannot be loaded
+     */
+    private Class<?> readClassValue() throws ClassNotFoundException {
+        final String name = readString();
+        final Class<?> primitive = PRIMITIVE_TYPES.get(name);
+        return primitive != null ? primitive : Class.forName(name, false, classLoader());
+    }
+
+    /**
+     * Reads a length-prefixed byte array.
+     *
+     * @return The decoded bytes
+     */
+    private byte[] readBytes() {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads the raw value of a primitive field into the specified object.
+     *
+     * @param field The primitive field to populate
+     * @param obj   The object holding the field
+     * @throws IllegalAccessException If the field cannot be written
+     */
+    private void readPrimitiveField(final Field field, final Object obj) throws IllegalAccessException {
+        final Class<?> type = field.getType();
+        if (type == int.class) {
+            field.setInt(obj, buffer.getInt());
+        } else if (type == long.class) {
+            field.setLong(obj, buffer.getLong());
+        } else if (type == boolean.class) {
+            field.setBoolean(obj, buffer.get() != 0);
+        } else if (type == double.class) {
+            field.setDouble(obj, buffer.getDouble());
+        } else if (type == float.class) {
+            field.setFloat(obj, buffer.getFloat());
+        } else if (type == char.class) {
+            field.setChar(obj, buffer.getChar());
+        } else if (type == byte.class) {
+            field.setByte(obj, buffer.get());
+        } else {
+            field.setShort(obj, buffer.getShort());
+        }
+    }
+
+    /**
+     * Reads a class reference, resolving inline class definitions.
+     * <p>
+     * The fields recorded by a definition must match the planned fields of the loaded class
+     * one by one, since primitive field values are stored raw and would otherwise be decoded
+     * into the wrong fields without notice.
+     * </p>
+     *
+     * @return The referenced class
+     * @throws ClassNotFoundException If a defined class cannot be loaded
+     * @throws IllegalStateException  If the layout of the loaded class differs from the snapshot
+     */
+    private Class<?> readClass() throws ClassNotFoundException {
+        final int id = buffer.getInt();
+        if (id != NEW_CLASS) {
+            return classes.get(id);
+        }
+        final String name = readString();
+        final int fieldCount = buffer.getInt();
+        final Class<?> type = Class.forName(name, false, classLoader());
+        final List<Field> fields = ClassPlan.of(type).fields();
+        if (fields.size() != fieldCount) {
+            throw new IllegalStateException("Snapshot layout of " + name + " has " + fieldCount
+                    + " fields, the loaded class has " + fields.size());
+        }
+        for (Field field : fields) {
+            final String recorded = readString() + "." + readString() + ": " + readString();
+            final String loaded = field.getDeclaringClass().getName() + "." + field.getName() + ": "
+                    + field.getType().getName();
+            if (!recorded.equals(loaded)) {
+                throw new IllegalStateException("Snapshot layout of " + name + " does not match the loaded class: "
+                        + recorded + " recorded where " + loaded + " is planned");
+            }
+        }
+        classes.add(type);
+        return type;
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     *
+     * @return The decoded string
+     */
+    private String readString() {
+        return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reserves the identifier of an object that is created after its content is decoded.
+     *
+     * @return The reserved identifier
+     */
+    private int reserveId() {
+        objects.add(PENDING);
+        return objects.size() - 1;
+    }
+
+    /**
+     * Returns the class loader used to resolve snapshot classes.
+     *
+     * @return The context class loader of the current thread, or the loader of this class
+     */
+    private static ClassLoader classLoader() {
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return loader != null ? loader : SnapshotReader.class.getClassLoader();
+    }
+}
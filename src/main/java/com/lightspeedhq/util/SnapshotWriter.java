@@ -0,0 +1,511 @@
+package com.lightspeedhq.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.IllformedLocaleException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.UUID;
+import java.util.concurrent.PriorityBlockingQueue;
+
+import static com.lightspeedhq.util.SnapshotFormat.*;
+
+/**
+ * Encodes an object graph into the binary snapshot format.
+ * <p>
+ * The graph is traversed with the same {@link ClassPlan}s the deep copy uses, writing
+ * into a direct buffer that grows as needed. Shared instances and cycles are encoded
+ * as back references, so the decoded graph keeps the identity structure of the source.
+ * </p>
+ */
+final class SnapshotWriter {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Class of the comparators returned by {@link java.util.Collections#reverseOrder(Comparator)}.
+     */
+    private static final Class<?> REVERSED_TYPE = Collections.reverseOrder(String.CASE_INSENSITIVE_ORDER).getClass();
+
+    private final Map<Object, Integer> objectIds = new IdentityHashMap<>();
+    private final Map<Class<?>, Integer> classIds = new IdentityHashMap<>();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+
+    /**
+     * Encodes the specified object graph.
+     *
+     * @param obj The root of the graph to encode
+     * @return A read-only direct buffer holding exactly the encoded graph
+     * @throws Exception If a field of the graph cannot be read
+     */
+    static ByteBuffer encode(final Object obj) throws Exception {
+        final SnapshotWriter writer = new SnapshotWriter();
+        writer.writeValue(obj);
+        final ByteBuffer encoded = writer.buffer.flip();
+        final ByteBuffer compact = ByteBuffer.allocateDirect(encoded.remaining());
+        compact.put(encoded).flip();
+        return compact.asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes a tagged value, recursing into its referenced objects.
+     *
+     * @param obj The value to write
+     * @throws Exception If a field of the value cannot be read
+     */
+    @SuppressWarnings("unchecked")
+    private void writeValue(final Object obj) throws Exception {
+        if (obj == null) {
+            ensure(1).put(NULL);
+            return;
+        }
+
+        final ClassPlan plan = ClassPlan.of(obj.getClass());
+        if (plan.kind() == ClassPlan.Kind.IMMUTABLE) {
+            writeImmutable(obj);
+            return;
+        } else if (plan.kind() == ClassPlan.Kind.OPTIONAL) {
+            ensure(1).put(OPTIONAL);
+            writeValue(((Optional<?>) obj).orElse(null));
+            return;
+        }
+
+        final Integer id = objectIds.get(obj);
+        if (id != null) {
+            ensure(5).put(REF).putInt(id);
+            return;
+        }
+        objectIds.put(obj, objectIds.size());
+
+        switch (plan.kind()) {
+            case ARRAY -> {
+                ensure(1).put(ARRAY);
+                writeClass(plan);
+                writeArray(obj);
+            }
+            case COLLECTION -> {
+                if (obj instanceof EnumSet<?> set) {
+                    writeEnumSet(set);
+                    return;
+                }
+                final Collection<Object> collection = (Collection<Object>) obj;
+                ensure(1).put(COLLECTION);
+                writeClass(plan);
+                writeOrder(collection);
+                ensure(4).putInt(collection.size());
+                for (Object o : collection) {
+                    writeValue(o);
+                }
+            }
+            case MAP -> {
+                if (obj instanceof EnumMap<?, ?> map) {
+                    writeEnumMap(map);
+                    return;
+                }
+                final Map<Object, Object> map = (Map<Object, Object>) obj;
+                ensure(1).put(MAP);
+                writeClass(plan);
+                writeOrder(map);
+                ensure(4).putInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            }
+            case BUFFER -> writeBuffer((ByteBuffer) obj);
+            default -> {
+                if (obj instanceof BitSet bits) {
+                    ensure(1).put(BIT_SET);
+                    writeArray(bits.toLongArray());
+                    return;
+                }
+                ensure(1).put(OBJECT);
+                writeClass(plan);
+                for (Field field : plan.fields()) {
+                    if (field.getType().isPrimitive()) {
+                        writePrimitiveField(field, obj);
+                    } else {
+                        writeValue(field.get(obj));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the order of a collection or map, so that the decoded container iterates alike.
+     *
+     * @param container The collection or map
+     * @throws Exception If the comparator cannot be written
+     * @throws IllegalArgumentException If the container cannot be recreated with its order
+     */
+    private void writeOrder(final Object container) throws Exception {
+        final Comparator<?> comparator = container instanceof SortedSet<?> set ? set.comparator()
+                : container instanceof SortedMap<?, ?> map ? map.comparator()
+                : container instanceof PriorityQueue<?> queue ? queue.comparator()
+                : container instanceof PriorityBlockingQueue<?> queue ? queue.comparator() : null;
+        if (comparator != null) {
+            orderedConstructor(container.getClass(), false);
+            ensure(1).put(COMPARATOR_ORDER);
+            writeComparator(comparator);
+        } else if (container instanceof LinkedHashMap<?, ?> map && isAccessOrdered(map)) {
+            orderedConstructor(container.getClass(), true);
+            ensure(1).put(ACCESS_ORDER);
+        } else {
+            ensure(1).put(DEFAULT_ORDER);
+        }
+    }
+
+    /**
+     * Writes the comparator of a sorted container.
+     * <p>
+     * Stateless JDK comparators and their reversals have dedicated encodings, other
+     * comparators are written like any object and must therefore be instances of a named,
+     * loadable class rather than lambdas.
+     * </p>
+     *
+     * @param comparator The comparator to write
+     * @throws Exception If a field of the comparator cannot be read
+     */
+    private void writeComparator(final Comparator<?> comparator) throws Exception {
+        final int index = COMPARATORS.indexOf(comparator);
+        final Class<?> type = comparator.getClass();
+        if (index >= 0) {
+            ensure(2).put(COMPARATOR).put((byte) index);
+        } else if (type == REVERSED_TYPE) {
+            ensure(1).put(REVERSED_COMPARATOR);
+            writeComparator(comparator.reversed());
+        } else if (type.isHidden() || type.isSynthetic() || type.getModule().isNamed() && !type.isEnum()) {
+            throw new IllegalArgumentException("Unsupported comparator " + type.getName()
+                    + ": only comparators of named classes can be restored");
+        } else {
+            writeValue(comparator);
+        }
+    }
+
+    /**
+     * Checks whether a linked hash map is ordered by access rather than insertion.
+     * <p>
+     * The flag has no accessor, so it is observed on a clone: reading the older of two
+     * added entries moves it to the end of an access ordered map only.
+     * </p>
+     *
+     * @param map The map to check
+     * @return True if reading an entry moves it to the end of the map
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean isAccessOrdered(final LinkedHashMap<?, ?> map) {
+        final LinkedHashMap<Object, Object> probe = (LinkedHashMap<Object, Object>) map.clone();
+        final Object older = new Object();
+        probe.put(older, older);
+        probe.put(new Object(), older);
+        probe.get(older);
+        return probe.lastEntry().getKey() == older;
+    }
+
+    /**
+     * Writes a value of an immutable class inline.
+     *
+     * @param obj The immutable value to write
+     * @throws IOException If a value without dedicated encoding cannot be serialized
+     */
+    private void writeImmutable(final Object obj) throws IOException {
+        if (obj instanceof String s) {
+            ensure(1).put(STRING);
+            writeString(s);
+        } else if (obj instanceof Integer i) {
+            ensure(5).put(INT).putInt(i);
+        } else if (obj instanceof Long l) {
+            ensure(9).put(LONG).putLong(l);
+        } else if (obj instanceof Boolean b) {
+            ensure(2).put(BOOLEAN).put((byte) (b ? 1 : 0));
+        } else if (obj instanceof Double d) {
+            ensure(9).put(DOUBLE).putDouble(d);
+        } else if (obj instanceof Float f) {
+            ensure(5).put(FLOAT).putFloat(f);
+        } else if (obj instanceof Character c) {
+            ensure(3).put(CHAR).putChar(c);
+        } else if (obj instanceof Byte b) {
+            ensure(2).put(BYTE).put(b);
+        } else if (obj instanceof Short s) {
+            ensure(3).put(SHORT).putShort(s);
+        } else if (obj instanceof Enum<?> e) {
+            ensure(1).put(ENUM);
+            writeClass(ClassPlan.of(e.getDeclaringClass()));
+            ensure(4).putInt(e.ordinal());
+        } else if (obj instanceof BigDecimal d) {
+            final byte[] unscaled = d.unscaledValue().toByteArray();
+            ensure(9 + unscaled.length).put(BIG_DECIMAL).putInt(d.scale()).putInt(unscaled.length).put(unscaled);
+        } else if (obj instanceof BigInteger i) {
+            final byte[] magnitude = i.toByteArray();
+            ensure(5 + magnitude.length).put(BIG_INTEGER).putInt(magnitude.length).put(magnitude);
+        } else if (obj instanceof OptionalInt o) {
+            ensure(6).put(OPTIONAL_INT).put((byte) (o.isPresent() ? 1 : 0)).putInt(o.orElse(0));
+        } else if (obj instanceof OptionalLong o) {
+            ensure(10).put(OPTIONAL_LONG).put((byte) (o.isPresent() ? 1 : 0)).putLong(o.orElse(0));
+        } else if (obj instanceof OptionalDouble o) {
+            ensure(10).put(OPTIONAL_DOUBLE).put((byte) (o.isPresent() ? 1 : 0)).putDouble(o.orElse(0));
+        } else if (obj instanceof UUID u) {
+            ensure(17).put(UUID_VALUE).putLong(u.getMostSignificantBits()).putLong(u.getLeastSignificantBits());
+        } else if (obj instanceof Locale l && isRecreated(l)) {
+            ensure(1).put(LOCALE);
+            writeString(l.getLanguage());
+            writeString(l.getScript());
+            writeString(l.getCountry());
+            writeString(l.getVariant());
+            final Map<Character, String> extensions = localeExtensions(l);
+            ensure(1).put((byte) extensions.size());
+            for (Map.Entry<Character, String> extension : extensions.entrySet()) {
+                ensure(2).putChar(extension.getKey());
+                writeString(extension.getValue());
+            }
+        } else if (obj instanceof Currency c) {
+            ensure(1).put(CURRENCY);
+            writeString(c.getCurrencyCode());
+        } else if (obj instanceof Class<?> c) {
+            ensure(1).put(CLASS);
+            writeString(c.getName());
+        } else if (obj instanceof ZoneId || TIME_TYPES.contains(obj.getClass())) {
+            final Class<?> type = obj instanceof ZoneId ? ZoneId.class : obj.getClass();
+            ensure(2).put(TIME).put((byte) TIME_TYPES.indexOf(type));
+            writeString(obj.toString());
+        } else if (obj instanceof Serializable) {
+            ensure(1).put(SERIALIZED);
+            writeSerialized(obj);
+        } else {
+            throw new IllegalArgumentException("Unsupported immutable value of " + obj.getClass().getName());
+        }
+    }
+
+    /**
+     * Checks whether a locale is recreated from its parts, which language tags cannot do
+     * for all legacy locales.
+     *
+     * @param locale The locale to check
+     * @return True if the locale can be written as its parts, false if it must be serialized
+     */
+    private static boolean isRecreated(final Locale locale) {
+        try {
+            return locale.equals(SnapshotFormat.locale(locale.getLanguage(), locale.getScript(), locale.getCountry(),
+                    locale.getVariant(), localeExtensions(locale)));
+        } catch (IllformedLocaleException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes an enum set as the ordinals of its elements.
+     *
+     * @param set The enum set to write
+     */
+    private void writeEnumSet(final EnumSet<?> set) {
+        // an empty set has no element to take the enum class from, but its complement has
+        final Enum<?> sample = (set.isEmpty() ? EnumSet.complementOf(set) : set).stream().findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported enum set of an enum without constants"));
+        ensure(1).put(ENUM_SET);
+        writeClass(ClassPlan.of(sample.getDeclaringClass()));
+        ensure(4 + set.size() * 4).putInt(set.size());
+        for (Enum<?> e : set) {
+            buffer.putInt(e.ordinal());
+        }
+    }
+
+    /**
+     * Writes an enum map as the ordinals of its keys followed by their values.
+     * <p>
+     * The key class of an empty enum map cannot be determined from its content, so
+     * empty maps are stored in their Java serialization form.
+     * </p>
+     *
+     * @param map The enum map to write
+     * @throws Exception If a value cannot be written
+     */
+    private void writeEnumMap(final EnumMap<?, ?> map) throws Exception {
+        ensure(5).put(ENUM_MAP).putInt(map.size());
+        if (map.isEmpty()) {
+            writeSerialized(map);
+            return;
+        }
+        writeClass(ClassPlan.of(map.keySet().iterator().next().getDeclaringClass()));
+        for (Map.Entry<? extends Enum<?>, ?> entry : map.entrySet()) {
+            ensure(4).putInt(entry.getKey().ordinal());
+            writeValue(entry.getValue());
+        }
+    }
+
+    /**
+     * Writes the length-prefixed Java serialization form of a value.
+     *
+     * @param obj The value to serialize
+     * @throws IOException If the value cannot be serialized
+     */
+    private void writeSerialized(final Object obj) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(obj);
+        }
+        ensure(4 + bytes.size()).putInt(bytes.size()).put(bytes.toByteArray());
+    }
+
+    /**
+     * Writes a byte buffer with its flags, capacity, position, limit and entire content.
+     *
+     * @param source The buffer to write
+     */
+    private void writeBuffer(final ByteBuffer source) {
+        final int capacity = source.capacity();
+        ensure(16 + capacity).put(BYTE_BUFFER)
+                .put((byte) (source.isDirect() ? 1 : 0))
+                .put((byte) (source.isReadOnly() ? 1 : 0))
+                .put((byte) (source.order() == ByteOrder.BIG_ENDIAN ? 0 : 1))
+                .putInt(capacity).putInt(source.position()).putInt(source.limit())
+                .put(source.duplicate().clear());
+    }
+
+    /**
+     * Writes the length and elements of an array, bulk copying primitive components.
+     *
+     * @param array The array to write
+     * @throws Exception If an element cannot be read
+     */
+    private void writeArray(final Object array) throws Exception {
+        final int length = Array.getLength(array);
+        ensure(4).putInt(length);
+        if (array instanceof byte[] a) {
+            ensure(length).put(a);
+        } else if (array instanceof int[] a) {
+            ensure(length * 4).asIntBuffer().put(a);
+            buffer.position(buffer.position() + length * 4);
+        } else if (array instanceof long[] a) {
+            ensure(length * 8).asLongBuffer().put(a);
+            buffer.position(buffer.position() + length * 8);
+        } else if (array instanceof double[] a) {
+            ensure(length * 8).asDoubleBuffer().put(a);
+            buffer.position(buffer.position() + length * 8);
+        } else if (array instanceof float[] a) {
+            ensure(length * 4).asFloatBuffer().put(a);
+            buffer.position(buffer.position() + length * 4);
+        } else if (array instanceof char[] a) {
+            ensure(length * 2).asCharBuffer().put(a);
+            buffer.position(buffer.position() + length * 2);
+        } else if (array instanceof short[] a) {
+            ensure(length * 2).asShortBuffer().put(a);
+            buffer.position(buffer.position() + length * 2);
+        } else if (array instanceof boolean[] a) {
+            ensure(length);
+            for (boolean b : a) {
+                buffer.put((byte) (b ? 1 : 0));
+            }
+        } else {
+            for (Object element : (Object[]) array) {
+                writeValue(element);
+            }
+        }
+    }
+
+    /**
+     * Writes the raw value of a primitive field.
+     *
+     * @param field The primitive field to write
+     * @param obj   The object holding the field
+     * @throws IllegalAccessException If the field cannot be read
+     */
+    private void writePrimitiveField(final Field field, final Object obj) throws IllegalAccessException {
+        final Class<?> type = field.getType();
+        if (type == int.class) {
+            ensure(4).putInt(field.getInt(obj));
+        } else if (type == long.class) {
+            ensure(8).putLong(field.getLong(obj));
+        } else if (type == boolean.class) {
+            ensure(1).put((byte) (field.getBoolean(obj) ? 1 : 0));
+        } else if (type == double.class) {
+            ensure(8).putDouble(field.getDouble(obj));
+        } else if (type == float.class) {
+            ensure(4).putFloat(field.getFloat(obj));
+        } else if (type == char.class) {
+            ensure(2).putChar(field.getChar(obj));
+        } else if (type == byte.class) {
+            ensure(1).put(field.getByte(obj));
+        } else {
+            ensure(2).putShort(field.getShort(obj));
+        }
+    }
+
+    /**
+     * Writes a class reference, defining the class inline on its first use.
+     * <p>
+     * A definition records the declaring class, name and type of every planned field, so
+     * the reader can reject a class whose layout changed since the snapshot was taken.
+     * </p>
+     *
+     * @param plan The plan of the class to reference
+     */
+    private void writeClass(final ClassPlan plan) {
+        final Integer id = classIds.get(plan.type());
+        if (id != null) {
+            ensure(4).putInt(id);
+            return;
+        }
+        classIds.put(plan.type(), classIds.size());
+        ensure(4).putInt(NEW_CLASS);
+        writeString(plan.type().getName());
+        ensure(4).putInt(plan.fields().size());
+        for (Field field : plan.fields()) {
+            writeString(field.getDeclaringClass().getName());
+            writeString(field.getName());
+            writeString(field.getType().getName());
+        }
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     *
+     * @param s The string to write
+     */
+    private void writeString(final String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensure(4 + bytes.length).putInt(bytes.length).put(bytes);
+    }
+
+    /**
+     * Makes sure the buffer can take the specified number of bytes, growing it if needed.
+     *
+     * @param bytes The number of bytes about to be written
+     * @return The buffer to write to
+     */
+    private ByteBuffer ensure(final int bytes) {
+        if (buffer.remaining() < bytes) {
+            final int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+            final ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+            grown.put(buffer.flip());
+            buffer = grown;
+        }
+        return buffer;
+    }
+}
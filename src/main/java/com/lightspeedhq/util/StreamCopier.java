@@ -0,0 +1,112 @@
+package com.lightspeedhq.util;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Copies the elements of streams and iterators lazily, as they are pulled.
+ * <p>
+ * The elements of one stream are copied with a shared map of copied objects, so an object
+ * referenced by several nearby elements is copied once and stays shared between their
+ * copies. The map only remembers the copies made for the most recent elements, up to the
+ * window size, so memory stays bounded on streams of any length. Objects shared by elements
+ * further apart than the window are copied again. Limits set by the copy options apply to
+ * each element separately.
+ * </p>
+ */
+public final class StreamCopier {
+
+    private final int window;
+    private final CopyOptions options;
+
+    private StreamCopier(final int window, final CopyOptions options) {
+        this.window = window;
+        this.options = options;
+    }
+
+    /**
+     * Creates a copier performing complete deep copies.
+     *
+     * @param window The number of previous elements whose copies are reused, 0 to copy
+     *               every element independently
+     * @return The copier
+     * @throws IllegalArgumentException If the window is negative
+     */
+    public static StreamCopier of(final int window) {
+        return of(window, CopyOptions.defaults());
+    }
+
+    /**
+     * Creates a copier copying elements as specified by the provided options.
+     *
+     * @param window  The number of previous elements whose copies are reused, 0 to copy
+     *                every element independently
+     * @param options The options controlling the copy of each element
+     * @return The copier
+     * @throws IllegalArgumentException If the window is negative
+     */
+    public static StreamCopier of(final int window, final CopyOptions options) {
+        if (window < 0) {
+            throw new IllegalArgumentException("Window must not be negative: " + window);
+        }
+        return new StreamCopier(window, options);
+    }
+
+    /**
+     * Returns a sequential stream of copies of the elements of the provided stream.
+     * <p>
+     * Closing the returned stream closes the source stream.
+     * </p>
+     *
+     * @param source The stream of elements to copy
+     * @param <T>    The type of the elements
+     * @return A stream copying each element when it is consumed
+     */
+    public <T> Stream<T> stream(final Stream<T> source) {
+        final Iterator<T> copies = iterator(source.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(copies, Spliterator.ORDERED), false)
+                .onClose(source::close);
+    }
+
+    /**
+     * Returns an iterator over copies of the elements of the provided iterator.
+     * <p>
+     * Failures of a copy are thrown from {@link Iterator#next()}, unchecked exceptions as is
+     * and checked exceptions wrapped in an {@link IllegalStateException}. The copies made for
+     * a failed element are discarded, so later elements never reuse an incomplete copy and
+     * the iteration can continue with the next element.
+     * </p>
+     *
+     * @param source The iterator of elements to copy
+     * @param <T>    The type of the elements
+     * @return An iterator copying each element when it is returned
+     */
+    public <T> Iterator<T> iterator(final Iterator<T> source) {
+        final WindowedIdentityMap converted = new WindowedIdentityMap(window);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public T next() {
+                final T element = source.next();
+                converted.advance();
+                try {
+                    return CopyUtils.deepCopy(element, options,
+                            new CopyContext(options, converted, converted.currentKeys()));
+                } catch (RuntimeException | Error e) {
+                    converted.discardCurrent();
+                    throw e;
+                } catch (Exception e) {
+                    converted.discardCurrent();
+                    throw new IllegalStateException("Failed to copy stream element", e);
+                }
+            }
+        };
+    }
+}
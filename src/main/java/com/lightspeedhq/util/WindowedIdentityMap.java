@@ -0,0 +1,89 @@
+package com.lightspeedhq.util;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Identity map of copied objects that only remembers the copies of the most recent elements of a stream.
+ * <p>
+ * Every entry belongs to the generation of the element whose copy added it. Once more than
+ * the window size of newer elements has been copied, the entries of the oldest generation
+ * are removed, so the map stays bounded however long the stream is.
+ * </p>
+ */
+final class WindowedIdentityMap extends AbstractMap<Object, Object> {
+
+    private final Map<Object, Object> entries = new IdentityHashMap<>();
+    private final Deque<List<Object>> generations = new ArrayDeque<>();
+    private final int window;
+    private List<Object> current = new ArrayList<>();
+
+    WindowedIdentityMap(final int window) {
+        this.window = window;
+        generations.addLast(current);
+    }
+
+    /**
+     * Starts the generation of the next element, evicting the entries of elements outside the window.
+     */
+    void advance() {
+        current = new ArrayList<>();
+        generations.addLast(current);
+        while (generations.size() > window + 1) {
+            for (Object key : generations.pollFirst()) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes the entries of the current generation, whose copy failed and may be incomplete.
+     */
+    void discardCurrent() {
+        for (Object key : current) {
+            entries.remove(key);
+        }
+        current.clear();
+    }
+
+    /**
+     * Returns the keys added by the current element.
+     *
+     * @return A view of the keys of the current generation, until the next advance
+     */
+    Collection<Object> currentKeys() {
+        return Collections.unmodifiableList(current);
+    }
+
+    @Override
+    public Object get(final Object key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public Object put(final Object key, final Object value) {
+        final Object previous = entries.put(key, value);
+        if (previous == null) {
+            current.add(key);
+        }
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public Set<Entry<Object, Object>> entrySet() {
+        return entries.entrySet();
+    }
+}
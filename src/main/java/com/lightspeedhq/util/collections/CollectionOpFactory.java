@@ -41,6 +41,19 @@ public final class CollectionOpFactory {
                 }
             };
 
+    /**
+     * Cache of the resolved op supplier of each collection class.
+     */
+    private static final ClassValue<Supplier<ICollectionOp>> OPS = new ClassValue<>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Supplier<ICollectionOp> computeValue(final Class<?> type) {
+            final Supplier<ICollectionOp> immutableCollectionSupplier = IMMUTABLE_COLLECTIONS.get(type.getName());
+            return immutableCollectionSupplier != null ? immutableCollectionSupplier
+                    : () -> DEFAULT_COLLECTION.apply((Class<Collection<Object>>) type);
+        }
+    };
+
     /**
      * Private constructor to prevent instantiation of this utility class.
      */
@@ -59,11 +72,29 @@ public final class CollectionOpFactory {
      * @return An appropriate ICollectionOp instance for the collection type
      * @throws ClassNotFoundException If the specified class cannot be found
      */
-    @SuppressWarnings("unchecked")
     public static ICollectionOp of(String className) throws ClassNotFoundException {
-        Supplier<ICollectionOp> immutableCollectionSupplier = IMMUTABLE_COLLECTIONS.get(className);
-        return immutableCollectionSupplier == null
-                ? DEFAULT_COLLECTION.apply((Class<Collection<Object>>) Class.forName(className))
-                : immutableCollectionSupplier.get();
+        return of(Class.forName(className));
+    }
+
+    /**
+     * Creates an appropriate ICollectionOp instance for the specified collection class.
+     * <p>
+     * The op to use is resolved once per class and cached.
+     * </p>
+     *
+     * @param collectionClass The collection class
+     * @return An appropriate ICollectionOp instance for the collection type
+     */
+    public static ICollectionOp of(Class<?> collectionClass) {
+        return OPS.get(collectionClass).get();
+    }
+
+    /**
+     * Resolves and caches the op of the specified collection class without creating a collection.
+     *
+     * @param collectionClass The collection class
+     */
+    public static void prepare(Class<?> collectionClass) {
+        OPS.get(collectionClass);
     }
 }
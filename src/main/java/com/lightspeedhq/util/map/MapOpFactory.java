@@ -2,6 +2,7 @@ package com.lightspeedhq.util.map;
 
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Factory for creating appropriate IMapOp instances based on map type.
@@ -27,6 +28,17 @@ public final class MapOpFactory {
         }
     };
 
+    /**
+     * Cache of the resolved op supplier of each map class.
+     */
+    private static final ClassValue<Supplier<IMapOp>> OPS = new ClassValue<>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Supplier<IMapOp> computeValue(final Class<?> type) {
+            return () -> DEFAULT_MAP.apply((Class<Map<Object, Object>>) type);
+        }
+    };
+
     /**
      * Private constructor to prevent instantiation of this utility class.
      */
@@ -44,8 +56,29 @@ public final class MapOpFactory {
      * @return An appropriate IMapOp instance for the map type
      * @throws ClassNotFoundException If the specified class cannot be found
      */
-    @SuppressWarnings("unchecked")
     public static IMapOp of(String className) throws ClassNotFoundException {
-        return DEFAULT_MAP.apply((Class<Map<Object, Object>>) Class.forName(className));
+        return of(Class.forName(className));
+    }
+
+    /**
+     * Creates an appropriate IMapOp instance for the specified map class.
+     * <p>
+     * The op to use is resolved once per class and cached.
+     * </p>
+     *
+     * @param mapClass The map class
+     * @return An appropriate IMapOp instance for the map type
+     */
+    public static IMapOp of(Class<?> mapClass) {
+        return OPS.get(mapClass).get();
+    }
+
+    /**
+     * Resolves and caches the op of the specified map class without creating a map.
+     *
+     * @param mapClass The map class
+     */
+    public static void prepare(Class<?> mapClass) {
+        OPS.get(mapClass);
     }
 }
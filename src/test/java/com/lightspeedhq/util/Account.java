@@ -0,0 +1,49 @@
+package com.lightspeedhq.util;
+
+/**
+ * Cloneable class mixing primitive, immutable and mutable fields.
+ * Its clone() override has a side effect that a deep copy must not trigger.
+ */
+public class Account implements Cloneable {
+    static int cloneCalls;
+
+    private final long id;
+    private double balance;
+    private String currency;
+    private long[] history;
+    private Person holder;
+
+    public Account(long id, double balance, String currency, long[] history, Person holder) {
+        this.id = id;
+        this.balance = balance;
+        this.currency = currency;
+        this.history = history;
+        this.holder = holder;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public long[] getHistory() {
+        return history;
+    }
+
+    public Person getHolder() {
+        return holder;
+    }
+
+    @Override
+    public Account clone() throws CloneNotSupportedException {
+        cloneCalls++;
+        return (Account) super.clone();
+    }
+}
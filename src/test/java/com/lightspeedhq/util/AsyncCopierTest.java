@@ -0,0 +1,58 @@
+package com.lightspeedhq.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the {@link AsyncCopier} class.
+ */
+public class AsyncCopierTest {
+
+    @Test
+    @DisplayName("Asynchronous copies should equal synchronous copies")
+    void testDeepCopyAsync() throws Exception {
+        Department hr = new Department("HR");
+        Department it = new Department("IT");
+        hr.setRelatedDepartment(it);
+        it.setRelatedDepartment(hr);
+
+        Department copy = CopyUtils.deepCopyAsync(hr).get();
+
+        assertNotSame(hr, copy, "Root should be copied");
+        assertEquals("IT", copy.getRelatedDepartment().getName(), "Copy should be equal");
+        assertSame(copy, copy.getRelatedDepartment().getRelatedDepartment(), "Cycles should be kept");
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> CopyUtils.deepCopyAsync(hr, CopyOptions.defaults().withMaxObjects(1)).get());
+        assertInstanceOf(CopyBudgetExceededException.class, e.getCause(), "Copy failures should complete the future");
+    }
+
+    @Test
+    @DisplayName("Copies beyond the pending limit should be rejected")
+    void testMaxPending() throws Exception {
+        List<Runnable> queued = new ArrayList<>();
+        AsyncCopier copier = AsyncCopier.of(queued::add, 1, 2);
+        Person original = new Person("Alice", 25);
+
+        CompletableFuture<Person> first = copier.copy(original);
+        copier.copy(original);
+        assertThrows(RejectedExecutionException.class, () -> copier.copy(original),
+                "Copy beyond the pending limit should be rejected");
+        assertEquals(2, copier.pending(), "Rejected copy should not be pending");
+
+        queued.forEach(Runnable::run);
+        assertEquals(original, first.get(), "Queued copy should complete");
+        assertEquals(0, copier.pending(), "Completed copies should not be pending");
+        assertNotNull(copier.copy(original), "Copies should be accepted again");
+        assertThrows(IllegalArgumentException.class, () -> AsyncCopier.of(queued::add, 2, 1),
+                "Pending limit below concurrency should be rejected");
+    }
+}
@@ -0,0 +1,104 @@
+package com.lightspeedhq.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the {@link CopyCache} class.
+ */
+public class CopyCacheTest {
+
+    @Test
+    @DisplayName("Copies should be reused until the stamp changes")
+    void testStamp() throws Exception {
+        CopyCache cache = CopyCache.of(10);
+        Person original = new Person("Alice", 25);
+
+        Person first = cache.getShared(original, 1);
+        assertNotSame(original, first, "Source should be copied");
+        assertEquals(original, first, "Copy should be equal");
+        assertSame(first, cache.getShared(original, 1), "Copy should be reused for the same stamp");
+
+        Person own = cache.get(original, 1);
+        assertNotSame(first, own, "Private copy should not be the shared copy");
+        assertEquals(first, own, "Private copy should be equal");
+
+        original.setAge(26);
+        Person second = cache.getShared(original, 2);
+        assertNotSame(first, second, "Source should be copied again for a new stamp");
+        assertEquals(26, second.getAge(), "New copy should reflect the source");
+
+        cache.invalidate(original);
+        assertEquals(0, cache.size(), "Invalidated copy should be removed");
+    }
+
+    @Test
+    @DisplayName("Stale stamps should not replace newer copies")
+    void testStaleStamp() throws Exception {
+        CopyCache cache = CopyCache.of(10);
+        Person original = new Person("Alice", 25);
+
+        Person newer = cache.getShared(original, 2);
+        Person stale = cache.getShared(original, 1);
+        assertNotSame(newer, stale, "Stale stamp should get its own copy");
+        assertEquals(original, stale, "Stale copy should reflect the source");
+        assertSame(newer, cache.getShared(original, 2), "Newer copy should stay cached");
+        assertEquals(1, cache.size(), "Stale stamp should not add an entry");
+    }
+
+    @Test
+    @DisplayName("Least recently used copies should be evicted")
+    void testEviction() throws Exception {
+        CopyCache cache = CopyCache.of(2);
+        Person a = new Person("A", 1);
+        Person b = new Person("B", 2);
+        Person c = new Person("C", 3);
+
+        Person copyA = cache.getShared(a, 0);
+        Person copyB = cache.getShared(b, 0);
+        cache.getShared(a, 0);
+        cache.getShared(c, 0);
+
+        assertEquals(2, cache.size(), "Cache should stay within its maximum size");
+        assertSame(copyA, cache.getShared(a, 0), "Recently used copy should be kept");
+        assertNotSame(copyB, cache.getShared(b, 0), "Least recently used copy should be evicted");
+        assertThrows(IllegalArgumentException.class, () -> CopyCache.of(0), "Non positive size should be rejected");
+    }
+
+    @Test
+    @DisplayName("Concurrent calls should share a single copy")
+    void testConcurrentCalls() throws Exception {
+        CopyCache cache = CopyCache.of(10);
+        List<Person> original = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            original.add(new Person("Person " + i, i));
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Person>>> copies = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                copies.add(executor.submit(() -> {
+                    start.await();
+                    return cache.getShared(original, 7);
+                }));
+            }
+            start.countDown();
+            List<Person> first = copies.get(0).get();
+            for (Future<List<Person>> copy : copies) {
+                assertSame(first, copy.get(), "Every caller should receive the same copy");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.lightspeedhq.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the {@link CopyProfile} class.
+ */
+public class CopyProfileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Exported profile should list the copied classes")
+    void testExport() throws Exception {
+        CopyUtils.deepCopy(new ArrayList<>(List.of(new Person("Alice", 25))));
+
+        Path profile = tempDir.resolve("copy.profile");
+        int exported = CopyProfile.export(profile);
+
+        List<String> lines = Files.readAllLines(profile);
+        assertTrue(exported > 0, "Profile should not be empty");
+        assertTrue(lines.contains(Person.class.getName()), "Profile should contain the copied class");
+        assertTrue(lines.contains(ArrayList.class.getName()), "Profile should contain the copied collection");
+    }
+
+    @Test
+    @DisplayName("Preloading should skip unknown classes")
+    void testPreload() throws Exception {
+        Path profile = tempDir.resolve("copy.profile");
+        Files.write(profile, List.of("# comment", Department.class.getName(), "com.example.Removed", ""));
+
+        assertEquals(1, CopyProfile.preload(profile), "Only loadable classes should be preloaded");
+        assertEquals(1, CopyProfile.preloadAsync(profile).get(), "Background preload should give the same result");
+    }
+}
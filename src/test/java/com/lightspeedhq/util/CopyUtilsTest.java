@@ -4,6 +4,12 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -298,4 +304,385 @@ public class CopyUtilsTest {
             assertEquals(25, copiedList.get(0).getAge(), "Copied element age should remain unchanged");
         }
     }
+
+    @Nested
+    @DisplayName("Clone Based Copy Tests")
+    class CloneBasedCopyTests {
+
+        @Test
+        @DisplayName("Cloneable objects should be cloned with mutable references replaced")
+        void testCloneableObject() throws Exception {
+            Account original = new Account(7L, 12.5, "EUR", new long[]{1, 2}, new Person("Alice", 25));
+            int cloneCalls = Account.cloneCalls;
+
+            Account copy = CopyUtils.deepCopy(original);
+
+            assertNotSame(original, copy, "Copied account should be a different instance");
+            assertEquals(7L, copy.getId(), "Final primitive field should be copied");
+            assertEquals(12.5, copy.getBalance(), "Primitive field should be copied");
+            assertSame(original.getCurrency(), copy.getCurrency(), "Immutable field should be shared");
+            assertNotSame(original.getHistory(), copy.getHistory(), "Array field should be copied");
+            assertArrayEquals(original.getHistory(), copy.getHistory(), "Array contents should be equal");
+            assertNotSame(original.getHolder(), copy.getHolder(), "Mutable field should be copied");
+            assertEquals(original.getHolder(), copy.getHolder(), "Mutable field should be equal");
+            assertEquals(cloneCalls, Account.cloneCalls, "Overridden clone() should not be invoked");
+        }
+
+        @Test
+        @DisplayName("Cloneable JDK containers should keep their type and configuration")
+        void testJdkContainers() throws Exception {
+            TreeMap<String, Person> originalTree = new TreeMap<>(Comparator.reverseOrder());
+            originalTree.put("a", new Person("Alice", 25));
+            originalTree.put("b", new Person("Bob", 30));
+            ArrayDeque<Person> originalDeque = new ArrayDeque<>(List.of(new Person("Carol", 35)));
+            BitSet originalBits = new BitSet();
+            originalBits.set(3);
+            originalBits.set(130);
+
+            TreeMap<String, Person> copiedTree = CopyUtils.deepCopy(originalTree);
+            ArrayDeque<Person> copiedDeque = CopyUtils.deepCopy(originalDeque);
+            BitSet copiedBits = CopyUtils.deepCopy(originalBits);
+
+            assertEquals(List.of("b", "a"), new ArrayList<>(copiedTree.keySet()), "Comparator should be kept");
+            assertNotSame(originalTree.get("a"), copiedTree.get("a"), "Map values should be copied");
+            assertEquals(originalTree, copiedTree, "Map contents should be equal");
+            assertNotSame(originalDeque.peek(), copiedDeque.peek(), "Deque elements should be copied");
+            assertEquals(originalDeque.peek(), copiedDeque.peek(), "Deque elements should be equal");
+            originalBits.set(5);
+            assertEquals(BitSet.valueOf(new long[]{8L, 0L, 4L}), copiedBits, "Bit set should be independent");
+        }
+
+        @Test
+        @DisplayName("Collections reachable from their own elements should be copied")
+        void testSelfReferencingList() throws Exception {
+            List<Object> original = new ArrayList<>();
+            original.add("element");
+            original.add(original);
+
+            List<Object> copy = CopyUtils.deepCopy(original);
+
+            assertNotSame(original, copy, "Copied list should be a different instance");
+            assertSame(copy, copy.get(1), "Self reference should point to the copy");
+        }
+    }
+
+    @Nested
+    @DisplayName("JDK Value Type Tests")
+    class JdkValueTypeTests {
+
+        @Test
+        @DisplayName("Enum sets and enum maps should be copied")
+        void testEnumSetAndEnumMap() throws Exception {
+            EnumSet<DayOfWeek> originalSet = EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+            EnumMap<DayOfWeek, Person> originalMap = new EnumMap<>(DayOfWeek.class);
+            originalMap.put(DayOfWeek.TUESDAY, new Person("Alice", 25));
+
+            EnumSet<DayOfWeek> copiedSet = CopyUtils.deepCopy(originalSet);
+            EnumMap<DayOfWeek, Person> copiedMap = CopyUtils.deepCopy(originalMap);
+
+            assertNotSame(originalSet, copiedSet, "Copied enum set should be a different instance");
+            assertEquals(originalSet, copiedSet, "Enum set contents should be equal");
+            originalSet.add(DayOfWeek.SUNDAY);
+            assertFalse(copiedSet.contains(DayOfWeek.SUNDAY), "Copied enum set should be independent");
+
+            assertEquals(originalMap, copiedMap, "Enum map contents should be equal");
+            assertNotSame(originalMap.get(DayOfWeek.TUESDAY), copiedMap.get(DayOfWeek.TUESDAY),
+                    "Enum map values should be copied");
+        }
+
+        @Test
+        @DisplayName("Value types should be shared and optionals should only copy mutable content")
+        void testValueTypes() throws Exception {
+            LocalDate date = LocalDate.of(2024, 1, 31);
+            BigDecimal amount = new BigDecimal("12.50");
+            Optional<String> name = Optional.of("Alice");
+            Optional<Person> person = Optional.of(new Person("Bob", 30));
+
+            assertSame(date, CopyUtils.deepCopy(date), "java.time values should be shared");
+            assertSame(amount, CopyUtils.deepCopy(amount), "BigDecimal should be shared");
+            assertSame(name, CopyUtils.deepCopy(name), "Optional of an immutable value should be shared");
+
+            Optional<Person> copiedPerson = CopyUtils.deepCopy(person);
+            assertNotSame(person.get(), copiedPerson.get(), "Optional of a mutable value should be copied");
+            assertEquals(person, copiedPerson, "Optional contents should be equal");
+        }
+    }
+
+    @Nested
+    @DisplayName("Partial Copy Tests")
+    class PartialCopyTests {
+
+        @Test
+        @DisplayName("Objects beyond the maximum depth should be shared")
+        void testMaxDepth() throws Exception {
+            Department a = new Department("A");
+            Department b = new Department("B");
+            Department c = new Department("C");
+            a.setRelatedDepartment(b);
+            b.setRelatedDepartment(c);
+
+            Department copy = CopyUtils.deepCopy(a, CopyOptions.defaults().withMaxDepth(1));
+
+            assertNotSame(a, copy, "Root should be copied");
+            assertNotSame(b, copy.getRelatedDepartment(), "Object at maximum depth should be copied");
+            assertSame(c, copy.getRelatedDepartment().getRelatedDepartment(),
+                    "Object beyond maximum depth should be shared");
+            assertSame(a, CopyUtils.deepCopy(new ArrayList<>(List.of(a)), CopyOptions.defaults().withMaxDepth(0)).get(0),
+                    "Maximum depth 0 should create a shallow copy");
+        }
+
+        @Test
+        @DisplayName("Cycles should be kept within the maximum depth")
+        void testMaxDepthWithCycle() throws Exception {
+            Department hr = new Department("HR");
+            Department it = new Department("IT");
+            hr.setRelatedDepartment(it);
+            it.setRelatedDepartment(hr);
+
+            Department copiedHr = CopyUtils.deepCopy(hr, CopyOptions.defaults().withMaxDepth(1));
+
+            assertSame(copiedHr, copiedHr.getRelatedDepartment().getRelatedDepartment(),
+                    "Already copied objects should be reused beyond the maximum depth");
+        }
+
+        @Test
+        @DisplayName("Only selected paths should be copied")
+        void testPaths() throws Exception {
+            Team original = new Team(new Person("Alice", 25),
+                    new ArrayList<>(List.of(new Person("Bob", 30), new Person("Carol", 35))),
+                    new Department("IT"));
+
+            Team copy = CopyUtils.deepCopy(original, CopyOptions.defaults().withPaths("members[*]"));
+
+            assertNotSame(original, copy, "Root should be copied");
+            assertSame(original.getLead(), copy.getLead(), "Unselected field should be shared");
+            assertSame(original.getDepartment(), copy.getDepartment(), "Unselected field should be shared");
+            assertNotSame(original.getMembers(), copy.getMembers(), "Selected collection should be copied");
+            assertNotSame(original.getMembers().get(0), copy.getMembers().get(0), "Selected elements should be copied");
+            assertEquals(original.getMembers(), copy.getMembers(), "Selected elements should be equal");
+
+            Team leadOnly = CopyUtils.deepCopy(original, CopyOptions.defaults().withPaths("lead", "department.name"));
+            assertNotSame(original.getLead(), leadOnly.getLead(), "Selected field should be copied");
+            assertSame(original.getMembers(), leadOnly.getMembers(), "Unselected collection should be shared");
+            assertNotSame(original.getDepartment(), leadOnly.getDepartment(), "Objects along a path should be copied");
+        }
+
+        @Test
+        @DisplayName("Malformed paths should be rejected")
+        void testMalformedPaths() {
+            CopyOptions defaults = CopyOptions.defaults();
+            assertThrows(IllegalArgumentException.class, () -> defaults.withPaths("members..name"));
+            assertThrows(IllegalArgumentException.class, () -> defaults.withPaths("members[0]"));
+            assertThrows(IllegalArgumentException.class, () -> defaults.withMaxDepth(-1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Copy Budget Tests")
+    class CopyBudgetTests {
+
+        @Test
+        @DisplayName("Exceeding the object limit should report counts, classes and path")
+        void testMaxObjects() {
+            List<Person> people = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                people.add(new Person("Person " + i, i));
+            }
+            Team team = new Team(null, people, null);
+
+            CopyBudgetExceededException e = assertThrows(CopyBudgetExceededException.class,
+                    () -> CopyUtils.deepCopy(team, CopyOptions.defaults().withMaxObjects(5)));
+
+            assertEquals(CopyBudgetExceededException.Limit.OBJECTS, e.getLimit(), "Object limit should be reported");
+            assertEquals(6, e.getObjects(), "Objects copied until the abort should be reported");
+            assertEquals("members[3]", e.getPath(), "Path of the object exceeding the limit should be reported");
+            assertEquals(3L, e.getTopClasses().get(Person.class), "Copied classes should be reported");
+        }
+
+        @Test
+        @DisplayName("Exceeding the size or time limit should abort the copy")
+        void testMaxBytesAndTime() {
+            Map<String, Object> original = new HashMap<>();
+            original.put("data", new long[1024]);
+
+            CopyBudgetExceededException bytes = assertThrows(CopyBudgetExceededException.class,
+                    () -> CopyUtils.deepCopy(original, CopyOptions.defaults().withMaxBytes(1024)));
+            assertEquals(CopyBudgetExceededException.Limit.BYTES, bytes.getLimit(), "Size limit should be reported");
+            assertEquals("[*]", bytes.getPath(), "Path of the object exceeding the limit should be reported");
+
+            List<Person> people = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                people.add(new Person("Person " + i, i));
+            }
+            CopyBudgetExceededException time = assertThrows(CopyBudgetExceededException.class,
+                    () -> CopyUtils.deepCopy(people, CopyOptions.defaults().withMaxTime(Duration.ZERO)));
+            assertEquals(CopyBudgetExceededException.Limit.TIME, time.getLimit(), "Time limit should be reported");
+        }
+
+        @Test
+        @DisplayName("Copies within the limits should complete")
+        void testWithinLimits() throws Exception {
+            Person original = new Person("Alice", 25);
+
+            Person copy = CopyUtils.deepCopy(original, CopyOptions.defaults()
+                    .withMaxObjects(1).withMaxBytes(1024).withMaxTime(Duration.ofSeconds(10)));
+
+            assertEquals(original, copy, "Copy within limits should be equal");
+        }
+    }
+
+    @Nested
+    @DisplayName("Graph Measurement Tests")
+    class GraphMeasurementTests {
+
+        @Test
+        @DisplayName("Measurement should count the objects a copy would create")
+        void testMeasure() throws Exception {
+            Person lead = new Person("Alice", 25);
+            Team original = new Team(lead, new ArrayList<>(List.of(new Person("Bob", 30), lead)),
+                    new Department("IT"));
+
+            GraphStats stats = CopyUtils.measure(original);
+
+            assertEquals(5, stats.objectCount(), "Shared objects should be counted once and immutables not at all");
+            assertEquals(2, stats.maxDepth(), "Depth of the list elements should be reported");
+            assertEquals(2L, stats.histogram().get(Person.class), "Instances should be counted per class");
+            assertTrue(stats.estimatedBytes() > 0, "Size should be estimated");
+            assertThrows(CopyBudgetExceededException.class, () -> CopyUtils.deepCopy(original,
+                    CopyOptions.defaults().withMaxObjects(stats.objectCount() - 1)), "Copy should need every measured object");
+            Team copy = CopyUtils.deepCopy(original, CopyOptions.defaults()
+                    .withMaxObjects(stats.objectCount()).withExpectedObjects((int) stats.objectCount()));
+            assertSame(copy.getLead(), copy.getMembers().get(1), "Copy with the measured count should complete");
+        }
+
+        @Test
+        @DisplayName("Measurement should honour depth and path limits")
+        void testMeasurePartial() throws Exception {
+            Team original = new Team(new Person("Alice", 25),
+                    new ArrayList<>(List.of(new Person("Bob", 30), new Person("Carol", 35))),
+                    new Department("IT"));
+
+            GraphStats paths = CopyUtils.measure(original, CopyOptions.defaults().withPaths("lead"));
+            assertEquals(2, paths.objectCount(), "Only the root and the selected field should be counted");
+            assertEquals(1, paths.maxDepth(), "Depth of the selected field should be reported");
+
+            GraphStats shallow = CopyUtils.measure(original, CopyOptions.defaults().withMaxDepth(0));
+            assertEquals(1, shallow.objectCount(), "Only the root should be counted");
+
+            GraphStats immutable = CopyUtils.measure("shared");
+            assertEquals(0, immutable.objectCount(), "Immutable values should not be counted");
+            assertEquals(-1, immutable.maxDepth(), "Nothing copied should report no depth");
+        }
+    }
+
+    @Nested
+    @DisplayName("Interning Tests")
+    class InterningTests {
+
+        @Test
+        @DisplayName("Equal values of registered types should share one instance in the copy")
+        void testInterning() throws Exception {
+            List<Object> original = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                original.add(new String("value"));
+                original.add(new BigDecimal("1.50"));
+            }
+            Set<String> tags = new TreeSet<>(Comparator.reverseOrder());
+            tags.add(new String("value"));
+            tags.add("other");
+            original.add(tags);
+            InternTable table = InternTable.of(100, String.class, BigDecimal.class);
+
+            List<Object> copy = CopyUtils.deepCopy(original, CopyOptions.defaults().withInterning(table));
+
+            assertEquals(original, copy, "Interned copy should be equal");
+            assertSame(copy.get(0), copy.get(2), "Equal strings should be interned");
+            assertSame(copy.get(1), copy.get(5), "Equal decimals should be interned");
+            Set<?> copiedTags = (Set<?>) copy.get(6);
+            assertSame(copy.get(0), copiedTags.stream().filter("value"::equals).findFirst().orElseThrow(),
+                    "Set elements should be interned");
+            assertEquals(List.of("value", "other"), new ArrayList<>(copiedTags), "Set comparator should be kept");
+            assertEquals(3, table.size(), "Table should hold one instance per distinct value");
+        }
+
+        @Test
+        @DisplayName("Keys of identity maps should not be interned")
+        void testIdentityMapKeys() throws Exception {
+            Map<Object, Object> immutableKeys = new IdentityHashMap<>();
+            immutableKeys.put(new String("k"), 1);
+            immutableKeys.put(new String("k"), 2);
+            Map<Object, Object> mixedKeys = new IdentityHashMap<>(immutableKeys);
+            mixedKeys.put(new Person("Alice", 25), 3);
+            InternTable table = InternTable.of(10, String.class);
+
+            List<Map<Object, Object>> copy = CopyUtils.deepCopy(new ArrayList<>(List.of(immutableKeys, mixedKeys)),
+                    CopyOptions.defaults().withInterning(table));
+
+            assertEquals(2, copy.get(0).size(), "Equal keys of a cloned identity map should stay distinct");
+            assertEquals(3, copy.get(1).size(), "Equal keys of a refilled identity map should stay distinct");
+        }
+
+        @Test
+        @DisplayName("Intern table should stay within its maximum size")
+        void testEviction() {
+            InternTable table = InternTable.of(2, String.class);
+            String first = table.intern(new String("a"));
+            table.intern(new String("b"));
+            table.intern(new String("c"));
+
+            assertEquals(2, table.size(), "Least recently used value should be evicted");
+            assertNotSame(first, table.intern(new String("a")), "Evicted value should not be returned");
+            assertThrows(IllegalArgumentException.class, () -> InternTable.of(0, String.class),
+                    "Non positive size should be rejected");
+            assertThrows(IllegalArgumentException.class, () -> InternTable.of(10, ArrayList.class),
+                    "Containers should be rejected");
+        }
+    }
+
+    @Nested
+    @DisplayName("Byte Buffer Tests")
+    class ByteBufferTests {
+
+        @Test
+        @DisplayName("Writable buffers should be copied with their state and read-only buffers shared")
+        void testByteBuffers() throws Exception {
+            ByteBuffer heap = ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}, 2, 4).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer direct = ByteBuffer.allocateDirect(8).putInt(42);
+            ByteBuffer readOnly = ByteBuffer.wrap(new byte[]{9, 10}).asReadOnlyBuffer();
+            List<ByteBuffer> original = new ArrayList<>(List.of(heap, direct, readOnly, heap.asReadOnlyBuffer()));
+
+            List<ByteBuffer> copy = CopyUtils.deepCopy(original);
+
+            assertNotSame(heap, copy.get(0), "Writable heap buffer should be copied");
+            assertEquals(heap, copy.get(0), "Remaining content should be equal");
+            assertEquals(2, copy.get(0).position(), "Position should be kept");
+            assertEquals(6, copy.get(0).limit(), "Limit should be kept");
+            assertEquals(ByteOrder.LITTLE_ENDIAN, copy.get(0).order(), "Byte order should be kept");
+            copy.get(0).put(2, (byte) 0);
+            assertEquals(3, heap.get(2), "Copy should not share the content of the original");
+
+            assertTrue(copy.get(1).isDirect(), "Direct buffer should be copied into a direct buffer");
+            assertEquals(42, copy.get(1).getInt(0), "Direct buffer content should be copied");
+            assertSame(readOnly, copy.get(2), "Read-only buffer should be shared");
+
+            // views are shared too, so they keep reading the original buffer rather than its copy
+            assertSame(original.get(3), copy.get(3), "Read-only view should be shared");
+            assertEquals(3, copy.get(3).get(2), "Read-only view should not see writes to the copied buffer");
+        }
+
+        @Test
+        @DisplayName("Byte arrays reaching the sharing threshold should be shared")
+        void testSharedByteArrays() throws Exception {
+            byte[] small = new byte[16];
+            byte[] large = new byte[1024];
+            Map<String, byte[]> original = new HashMap<>(Map.of("small", small, "large", large));
+
+            Map<String, byte[]> copy = CopyUtils.deepCopy(original, CopyOptions.defaults().withSharedByteArrays(1024));
+
+            assertNotSame(small, copy.get("small"), "Small array should be copied");
+            assertSame(large, copy.get("large"), "Large array should be shared");
+            assertEquals(2, CopyUtils.measure(original, CopyOptions.defaults().withSharedByteArrays(1024)).objectCount(),
+                    "Shared array should not be measured");
+        }
+    }
 }
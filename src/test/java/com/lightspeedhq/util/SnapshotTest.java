@@ -0,0 +1,339 @@
+package com.lightspeedhq.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the {@link Snapshot} class.
+ */
+public class SnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Materialized copies should be equal to the source and independent of each other")
+    void testMaterializeIndependentCopies() throws Exception {
+        List<Person> original = new ArrayList<>();
+        original.add(new Person("Alice", 25));
+        original.add(new Person("Bob", 30));
+
+        Snapshot<List<Person>> snapshot = Snapshot.of(original);
+        original.get(0).setName("Modified Alice");
+
+        List<Person> first = snapshot.materialize();
+        List<Person> second = snapshot.materialize();
+
+        assertEquals("Alice", first.get(0).getName(), "Snapshot should not reflect later modifications");
+        assertEquals(first, second, "Materialized copies should be equal");
+        assertNotSame(first.get(0), second.get(0), "Materialized copies should not share objects");
+        assertTrue(snapshot.size() > 0, "Snapshot should occupy off-heap bytes");
+    }
+
+    @Test
+    @DisplayName("Circular references should be restored")
+    void testCircularReferences() throws Exception {
+        Department hr = new Department("HR");
+        Department it = new Department("IT");
+        hr.setRelatedDepartment(it);
+        it.setRelatedDepartment(hr);
+
+        Department copiedHr = Snapshot.of(hr).materialize();
+
+        assertNotSame(hr, copiedHr, "Materialized department should be a different instance");
+        assertEquals("IT", copiedHr.getRelatedDepartment().getName(), "Related department should be restored");
+        assertSame(copiedHr, copiedHr.getRelatedDepartment().getRelatedDepartment(),
+                "Circular reference should be maintained in the materialized copy");
+    }
+
+    @Test
+    @DisplayName("References from the content of a collection or map back to it should be restored")
+    void testContainerBackReferences() throws Exception {
+        List<Object> list = new ArrayList<>();
+        list.add("first");
+        list.add(list);
+        Node node = new Node();
+        node.siblings = new ArrayList<>(List.of(node));
+        Map<String, Object> map = new HashMap<>();
+        map.put("self", map);
+
+        List<Object> copiedList = Snapshot.of(list).materialize();
+        Node copiedNode = Snapshot.of(node).materialize();
+        Map<String, Object> copiedMap = Snapshot.of(map).materialize();
+
+        assertSame(copiedList, copiedList.get(1), "List containing itself should be restored");
+        assertSame(copiedNode, copiedNode.siblings.get(0), "Element referring to its list should be restored");
+        assertSame(copiedMap, copiedMap.get("self"), "Map containing itself should be restored");
+
+        Object[] elements = new Object[1];
+        List<Object> fixedSize = Arrays.asList(elements);
+        elements[0] = fixedSize;
+        Snapshot<List<Object>> unsupported = Snapshot.of(fixedSize);
+        assertThrows(IllegalStateException.class, unsupported::materialize,
+                "Back reference to a container built once complete should fail");
+    }
+
+    @Test
+    @DisplayName("Arrays, maps and immutable values should round-trip")
+    void testArraysMapsAndImmutables() throws Exception {
+        Map<String, Object> original = new HashMap<>();
+        original.put("ints", new int[]{1, 2, 3});
+        original.put("doubles", new double[]{1.5, -2.5});
+        original.put("names", Arrays.asList("One", "Two"));
+        original.put("long", 42L);
+        original.put("char", 'x');
+
+        Map<String, Object> copy = Snapshot.of(original).materialize();
+
+        assertArrayEquals(new int[]{1, 2, 3}, (int[]) copy.get("ints"), "Int array should round-trip");
+        assertArrayEquals(new double[]{1.5, -2.5}, (double[]) copy.get("doubles"), "Double array should round-trip");
+        assertEquals(Arrays.asList("One", "Two"), copy.get("names"), "Arrays.asList should round-trip");
+        assertEquals(42L, copy.get("long"), "Boxed long should round-trip");
+        assertEquals('x', copy.get("char"), "Boxed char should round-trip");
+    }
+
+    @Test
+    @DisplayName("Primitive optionals should round-trip")
+    void testPrimitiveOptionals() throws Exception {
+        List<Object> original = new ArrayList<>(List.of(OptionalInt.of(7), OptionalInt.empty(),
+                OptionalLong.of(-8L), OptionalLong.empty(), OptionalDouble.of(0.5), OptionalDouble.empty(), "end"));
+
+        assertEquals(original, Snapshot.of(original).materialize(), "Present and empty optionals should round-trip");
+    }
+
+    @Test
+    @DisplayName("Immutable JDK values should round-trip through their dedicated encodings")
+    void testImmutableValues() throws Exception {
+        List<Object> original = new ArrayList<>(List.of(UUID.randomUUID(), Locale.CANADA_FRENCH,
+                Currency.getInstance("EUR"), String.class, int.class, Person[].class,
+                Instant.parse("2024-05-01T10:15:30.123Z"), LocalTime.of(23, 59),
+                ZonedDateTime.of(2024, 3, 31, 2, 30, 0, 0, ZoneId.of("Europe/Paris")),
+                ZoneId.of("America/New_York"), ZoneOffset.ofHours(-3), Duration.ofMillis(1500),
+                Period.ofMonths(14), YearMonth.of(2024, 2), Clock.systemUTC()));
+
+        assertEquals(original, Snapshot.of(original).materialize(), "Immutable values should round-trip");
+    }
+
+    @Test
+    @DisplayName("Legacy, scripted and extended locales should round-trip")
+    void testLocales() throws Exception {
+        List<Locale> original = new ArrayList<>(List.of(Locale.of("no", "NO", "NY"), Locale.of("ja", "JP", "JP"),
+                Locale.of("th", "TH", "TH"), Locale.forLanguageTag("sr-Latn-RS"),
+                Locale.forLanguageTag("de-DE-u-co-phonebk-x-private"), Locale.of("en", "US", "POSIX_x"), Locale.ROOT));
+
+        List<Locale> copy = Snapshot.of(original).materialize();
+
+        assertEquals(original, copy, "Locales should round-trip");
+        assertEquals("no_NO_NY", copy.get(0).toString(), "Legacy Norwegian locale should not become nn_NO");
+    }
+
+    @Test
+    @DisplayName("Serialized values of mutable classes should be rejected")
+    void testSerializedValuesFiltered() throws Exception {
+        Path valid = tempDir.resolve("valid.snapshot");
+        Snapshot.of("header").writeTo(valid);
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(new ArrayList<>(List.of("payload")));
+        }
+        Path tampered = tempDir.resolve("tampered.snapshot");
+        Files.write(tampered, ByteBuffer.allocate(13 + serialized.size())
+                .put(Files.readAllBytes(valid), 0, 8)
+                .put((byte) 22).putInt(serialized.size()).put(serialized.toByteArray()).array());
+
+        Snapshot<Object> snapshot = Snapshot.map(tampered);
+        assertThrows(InvalidClassException.class, snapshot::materialize, "Mutable serialized class should be rejected");
+    }
+
+    @Test
+    @DisplayName("JDK value and enum container types should round-trip")
+    void testJdkTypes() throws Exception {
+        EnumMap<DayOfWeek, Person> schedule = new EnumMap<>(DayOfWeek.class);
+        schedule.put(DayOfWeek.MONDAY, new Person("Alice", 25));
+        BitSet bits = new BitSet();
+        bits.set(70);
+        List<Object> original = new ArrayList<>(List.of(
+                EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.SUNDAY), EnumSet.noneOf(DayOfWeek.class),
+                schedule, new EnumMap<>(DayOfWeek.class), bits,
+                Optional.of(new Person("Bob", 30)), LocalDate.of(2024, 1, 31), new BigDecimal("-12.50")));
+
+        List<Object> copy = Snapshot.of(original).materialize();
+
+        assertEquals(original, copy, "JDK types should round-trip");
+        assertNotSame(schedule.get(DayOfWeek.MONDAY), ((Map<?, ?>) copy.get(2)).get(DayOfWeek.MONDAY),
+                "Enum map values should be materialized as new instances");
+    }
+
+    @Test
+    @DisplayName("Sorted and access ordered containers should keep their order like a deep copy")
+    void testContainerOrder() throws Exception {
+        Map<String, Integer> reversed = new TreeMap<>(Comparator.reverseOrder());
+        reversed.put("a", 1);
+        reversed.put("b", 2);
+        Set<String> caseInsensitive = new TreeSet<>(Collections.reverseOrder(String.CASE_INSENSITIVE_ORDER));
+        caseInsensitive.addAll(List.of("a", "B", "c"));
+        PriorityQueue<Person> byAge = new PriorityQueue<>(new ByAge());
+        byAge.addAll(List.of(new Person("Bob", 30), new Person("Alice", 25)));
+        Map<String, Integer> accessed = new LinkedHashMap<>(16, 0.75f, true);
+        accessed.put("a", 1);
+        accessed.put("b", 2);
+        accessed.get("a");
+        List<Object> original = new ArrayList<>(List.of(reversed, caseInsensitive, byAge, accessed));
+
+        List<Object> copy = Snapshot.of(original).materialize();
+
+        assertEquals(List.of("b", "a"), new ArrayList<>(((Map<?, ?>) copy.get(0)).keySet()),
+                "Tree map comparator should be kept");
+        assertEquals(List.of("c", "B", "a"), new ArrayList<>((Set<?>) copy.get(1)),
+                "Reversed comparator should be kept");
+        assertTrue(((Set<?>) copy.get(1)).contains("b"), "Case insensitive comparator should be kept");
+        assertEquals("Alice", ((PriorityQueue<?>) copy.get(2)).peek() instanceof Person p ? p.getName() : null,
+                "Priority queue comparator should be kept");
+        Map<?, ?> accessedCopy = (Map<?, ?>) copy.get(3);
+        accessedCopy.get("b");
+        assertEquals(List.of("a", "b"), new ArrayList<>(accessedCopy.keySet()), "Access order should be kept");
+        assertEquals(new ArrayList<>(CopyUtils.deepCopy(reversed).keySet()),
+                new ArrayList<>(((Map<?, ?>) copy.get(0)).keySet()), "Materialized copy should agree with deep copy");
+
+        Set<String> lambdaSorted = new TreeSet<>((x, y) -> y.compareTo(x));
+        assertThrows(IllegalArgumentException.class, () -> Snapshot.of(lambdaSorted),
+                "Container sorted by a lambda should be rejected");
+    }
+
+    @Test
+    @DisplayName("Byte buffers should round-trip with their state")
+    void testByteBuffers() throws Exception {
+        ByteBuffer heap = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putInt(42);
+        ByteBuffer direct = ByteBuffer.allocateDirect(8).putLong(0, 7L);
+        List<ByteBuffer> original = new ArrayList<>(List.of(heap, direct, heap.asReadOnlyBuffer(), heap));
+
+        List<ByteBuffer> copy = Snapshot.of(original).materialize();
+
+        assertEquals(original, copy, "Buffer content and state should be restored");
+        assertEquals(ByteOrder.LITTLE_ENDIAN, copy.get(0).order(), "Byte order should be restored");
+        assertTrue(copy.get(1).isDirect(), "Direct buffer should be restored as direct");
+        assertTrue(copy.get(2).isReadOnly(), "Read-only buffer should be restored as read-only");
+        assertSame(copy.get(0), copy.get(3), "Shared buffer should be restored once");
+    }
+
+    @Test
+    @DisplayName("Persisted snapshot should be restored through a memory-mapped file")
+    void testPersistAndMap() throws Exception {
+        Department hr = new Department("HR");
+        Department it = new Department("IT");
+        hr.setRelatedDepartment(it);
+        it.setRelatedDepartment(hr);
+        Map<String, Object> original = new LinkedHashMap<>();
+        original.put("department", hr);
+        original.put("people", new ArrayList<>(List.of(new Person("Alice", 25), new Person("Bob", 30))));
+
+        Path file = tempDir.resolve("graph.snapshot");
+        Snapshot.of(original).writeTo(file);
+        Snapshot<Map<String, Object>> restored = Snapshot.map(file);
+        Map<String, Object> copy = restored.materialize();
+
+        Department copiedHr = (Department) copy.get("department");
+        assertEquals("HR", copiedHr.getName(), "Department should be restored");
+        assertSame(copiedHr, copiedHr.getRelatedDepartment().getRelatedDepartment(),
+                "Circular reference should be restored from file");
+        assertEquals(original.get("people"), copy.get("people"), "People should be restored from file");
+        assertNotSame(copy.get("people"), restored.materialize().get("people"),
+                "Each materialization should produce a new copy");
+    }
+
+    @Test
+    @DisplayName("Snapshot of a class whose field layout changed should be rejected")
+    void testLayoutMismatch() throws Exception {
+        Path valid = tempDir.resolve("valid.snapshot");
+        Snapshot.of(new Person("Alice", 25)).writeTo(valid);
+        byte[] header = Arrays.copyOf(Files.readAllBytes(valid), 8);
+        String person = Person.class.getName();
+
+        Path same = tempDir.resolve("same.snapshot");
+        Files.write(same, personSnapshot(header, new String[][]{{person, "name", String.class.getName()},
+                {person, "age", "int"}}));
+        assertEquals(new Person("Alice", 25), Snapshot.map(same).materialize(), "Matching layout should decode");
+
+        Path swapped = tempDir.resolve("swapped.snapshot");
+        Files.write(swapped, personSnapshot(header, new String[][]{{person, "age", "int"},
+                {person, "name", String.class.getName()}}));
+        assertThrows(IllegalStateException.class, Snapshot.map(swapped)::materialize,
+                "Reordered fields should be rejected");
+
+        Path retyped = tempDir.resolve("retyped.snapshot");
+        Files.write(retyped, personSnapshot(header, new String[][]{{person, "name", String.class.getName()},
+                {person, "age", "float"}}));
+        assertThrows(IllegalStateException.class, Snapshot.map(retyped)::materialize,
+                "Field of another type with the same size should be rejected");
+    }
+
+    @Test
+    @DisplayName("Mapping a file that is not a snapshot should fail")
+    void testMapInvalidFile() throws Exception {
+        Path file = tempDir.resolve("invalid.snapshot");
+        Files.writeString(file, "not a snapshot");
+
+        assertThrows(IOException.class, () -> Snapshot.map(file), "Invalid file should be rejected");
+    }
+
+    /**
+     * Builds a snapshot file of a person with a hand-written class definition.
+     *
+     * @param header The file header
+     * @param fields The declaring class, name and type of each field of the definition
+     * @return The content of the file
+     */
+    private static byte[] personSnapshot(final byte[] header, final String[][] fields) {
+        ByteBuffer file = ByteBuffer.allocate(1024).put(header)
+                .put(SnapshotFormat.OBJECT).putInt(SnapshotFormat.NEW_CLASS);
+        putString(file, Person.class.getName());
+        file.putInt(fields.length);
+        for (String[] field : fields) {
+            for (String part : field) {
+                putString(file, part);
+            }
+        }
+        file.put(SnapshotFormat.STRING);
+        putString(file, "Alice");
+        file.putInt(25);
+        return Arrays.copyOf(file.array(), file.position());
+    }
+
+    private static void putString(final ByteBuffer buffer, final String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    /**
+     * Comparator of people by age.
+     */
+    static class ByAge implements Comparator<Person> {
+        @Override
+        public int compare(final Person a, final Person b) {
+            return Integer.compare(a.getAge(), b.getAge());
+        }
+    }
+
+    /**
+     * Node referring to the list that contains it.
+     */
+    static class Node {
+        List<Node> siblings;
+    }
+}
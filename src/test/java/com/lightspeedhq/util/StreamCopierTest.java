@@ -0,0 +1,92 @@
+package com.lightspeedhq.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the {@link StreamCopier} class.
+ */
+public class StreamCopierTest {
+
+    @Test
+    @DisplayName("Objects shared by elements within the window should stay shared")
+    void testWindow() {
+        Department it = new Department("IT");
+        List<Team> original = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            original.add(new Team(new Person("Lead " + i, i), new ArrayList<>(), it));
+        }
+
+        List<Team> copy = StreamCopier.of(2).stream(original.stream()).toList();
+
+        assertEquals(4, copy.size(), "Every element should be copied");
+        assertNotSame(original.get(0), copy.get(0), "Elements should be copied");
+        assertEquals("Lead 3", copy.get(3).getLead().getName(), "Element order should be kept");
+        assertNotSame(it, copy.get(0).getDepartment(), "Shared object should be copied");
+        assertSame(copy.get(0).getDepartment(), copy.get(2).getDepartment(),
+                "Copies within the window should be reused");
+        assertNotSame(copy.get(0).getDepartment(), copy.get(3).getDepartment(),
+                "Copies outside the window should not be reused");
+
+        List<Team> independent = StreamCopier.of(0).stream(original.stream()).toList();
+        assertNotSame(independent.get(0).getDepartment(), independent.get(1).getDepartment(),
+                "Window 0 should copy every element independently");
+    }
+
+    @Test
+    @DisplayName("Elements should be copied lazily as they are pulled")
+    void testLazyCopy() {
+        Iterator<Person> copies = StreamCopier.of(16).iterator(
+                Stream.iterate(0, i -> i + 1).map(i -> new Person("Person " + i, i)).iterator());
+
+        assertEquals(new Person("Person 0", 0), copies.next(), "First element should be copied");
+        assertEquals(new Person("Person 1", 1), copies.next(), "Next element should be copied on demand");
+
+        Iterator<Person> limited = StreamCopier.of(1, CopyOptions.defaults().withMaxObjects(0))
+                .iterator(List.of(new Person("Alice", 25)).iterator());
+        assertThrows(CopyBudgetExceededException.class, limited::next, "Copy failures should be thrown");
+        assertThrows(IllegalArgumentException.class, () -> StreamCopier.of(-1), "Negative window should be rejected");
+    }
+
+    @Test
+    @DisplayName("Copies of a failed element should not be reused by later elements")
+    void testFailedElement() {
+        List<Person> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            members.add(new Person("Member " + i, i));
+        }
+        Team team = new Team(new Person("Lead", 40), members, new Department("IT"));
+        Iterator<Object> copies = StreamCopier.of(4, CopyOptions.defaults().withMaxObjects(8))
+                .iterator(List.<Object>of(new Box(team), new Box(new Person("Other", 30)), team).iterator());
+
+        CopyBudgetExceededException first = assertThrows(CopyBudgetExceededException.class, copies::next,
+                "Element exceeding the budget should fail");
+        assertFalse(first.getTopClasses().isEmpty(), "Failure should report the copied classes");
+
+        Box other = (Box) copies.next();
+        assertEquals(new Person("Other", 30), other.value, "Iteration should continue after a failure");
+
+        CopyBudgetExceededException shared = assertThrows(CopyBudgetExceededException.class, copies::next,
+                "Object shared with the failed element should be copied again, not reused half copied");
+        assertFalse(shared.getTopClasses().containsKey(Box.class),
+                "Failure should only report the objects of the failed element");
+    }
+
+    /**
+     * Holder of a single reference.
+     */
+    static class Box {
+        private Object value;
+
+        Box(final Object value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.lightspeedhq.util;
+
+import java.util.List;
+
+/**
+ * Class combining a single reference, a collection and a nested graph
+ * for partial copy testing.
+ */
+public class Team {
+    private Person lead;
+    private List<Person> members;
+    private Department department;
+
+    public Team() {
+    }
+
+    public Team(Person lead, List<Person> members, Department department) {
+        this.lead = lead;
+        this.members = members;
+        this.department = department;
+    }
+
+    public Person getLead() {
+        return lead;
+    }
+
+    public List<Person> getMembers() {
+        return members;
+    }
+
+    public Department getDepartment() {
+        return department;
+    }
+}